@@ -0,0 +1,74 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.PieceGenerator;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * Measures the game rules: dealing pieces and working out lines and score after a piece is played
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+
+    /**
+     * Width and height of the board
+     */
+    @Param({"5", "8", "20"})
+    public int size;
+
+    private GameEngine engine;
+    private GamePiece dot;
+    private int row;
+
+    @Setup
+    public void setup() {
+        engine = new GameEngine(size, size, PieceGenerator.random(1206));
+        engine.start();
+        dot = GamePiece.createPiece(3);
+    }
+
+    @Benchmark
+    public GamePiece spawnPiece() {
+        return engine.spawnPiece();
+    }
+
+    /**
+     * A piece which completes no lines, the usual case
+     */
+    @Benchmark
+    public int afterPiece() {
+        engine.afterPiece(dot, size / 2, size / 2);
+        return engine.getScore();
+    }
+
+    /**
+     * A piece which completes a row. Includes the cost of filling the row beforehand.
+     */
+    @Benchmark
+    public int afterPieceClearingRow() {
+        var grid = engine.getGrid();
+        var y = row++ % size;
+        for (var x = 0; x < size; x++) {
+            grid.set(x, y, 1);
+        }
+        engine.afterPiece(dot, 0, y);
+        return engine.getScore();
+    }
+}
@@ -0,0 +1,87 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * Measures checking and playing pieces on the grid. The 5x5 and 8x8 boards use the precomputed placement masks, the
+ * larger boards fall back to checking row by row.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GridBenchmark {
+
+    /**
+     * Number of moves cycled through, a power of two
+     */
+    private static final int MOVES = 1024;
+
+    /**
+     * Width and height of the board
+     */
+    @Param({"5", "8", "10", "20"})
+    public int size;
+
+    private Grid grid;
+    private GamePiece[] pieces;
+    private int[] xs, ys;
+    private int move;
+
+    /**
+     * Half fill a board and pick a fixed set of moves to try on it, some of which are off the edge
+     */
+    @Setup
+    public void setup() {
+        var random = new SplittableRandom(1206);
+        grid = new Grid(size, size);
+        for (var x = 0; x < size; x++) {
+            for (var y = 0; y < size; y++) {
+                if (random.nextBoolean()) grid.set(x, y, 1 + random.nextInt(GamePiece.PIECES));
+            }
+        }
+
+        pieces = new GamePiece[MOVES];
+        xs = new int[MOVES];
+        ys = new int[MOVES];
+        for (var i = 0; i < MOVES; i++) {
+            pieces[i] = GamePiece.createPiece(random.nextInt(GamePiece.PIECES), random.nextInt(GamePiece.ROTATIONS));
+            xs[i] = random.nextInt(-1, size + 1);
+            ys[i] = random.nextInt(-1, size + 1);
+        }
+    }
+
+    @Benchmark
+    public boolean canPlayPiece() {
+        var i = move++ & (MOVES - 1);
+        return grid.canPlayPiece(pieces[i], xs[i], ys[i]);
+    }
+
+    /**
+     * Plays pieces over each other without checking they fit, so every play changes the grid
+     */
+    @Benchmark
+    public Grid playPiece() {
+        var i = move++ & (MOVES - 1);
+        var x = Math.max(1, Math.min(size - 2, xs[i]));
+        var y = Math.max(1, Math.min(size - 2, ys[i]));
+        grid.playPiece(pieces[i], x, y);
+        return grid;
+    }
+}
@@ -0,0 +1,88 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.ai.Heuristic;
+import uk.ac.soton.comp1206.ai.Move;
+import uk.ac.soton.comp1206.ai.MoveSearch;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * Measures finding the best move on a half filled board. Each search tries every distinct orientation of the pieces at
+ * every position, so dividing the searches per second on one thread by that gives the evaluations per core.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoveSearchBenchmark {
+
+    /**
+     * Width and height of the board
+     */
+    @Param({"5", "8", "20"})
+    public int size;
+
+    /**
+     * Threads searching, 0 for the common pool
+     */
+    @Param({"1", "0"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private MoveSearch search;
+    private Grid grid;
+    private GamePiece current, following;
+
+    @Setup
+    public void setup() {
+        pool = threads == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+        search = new MoveSearch(Heuristic.standard(), pool);
+
+        //The same half filled board every run
+        var random = new Random(1206);
+        grid = new Grid(size, size);
+        for (var y = 0; y < size; y++) {
+            for (var x = 0; x < size; x++) {
+                if (random.nextBoolean()) grid.set(x, y, 1 + random.nextInt(GamePiece.PIECES));
+            }
+        }
+        current = GamePiece.createPiece(0);
+        following = GamePiece.createPiece(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+    }
+
+    @Benchmark
+    public Move search() {
+        return search.search(grid, current, following, false);
+    }
+
+    /**
+     * Also tries swapping to the following piece, about twice the work
+     */
+    @Benchmark
+    public Move searchWithSwap() {
+        return search.search(grid, current, following, true);
+    }
+}
@@ -0,0 +1,51 @@
+package uk.ac.soton.comp1206.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.soton.comp1206.component.GameBlockCoordinate;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * Measures the small value objects used everywhere: rotating pieces and hashing block coordinates
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceBenchmark {
+
+    private GamePiece piece;
+    private int x, y;
+
+    @Setup
+    public void setup() {
+        piece = GamePiece.createPiece(5);
+    }
+
+    @Benchmark
+    public GamePiece rotate() {
+        piece = piece.rotate();
+        return piece;
+    }
+
+    /**
+     * Hashes a new coordinate each time, as building a set of cleared blocks does
+     */
+    @Benchmark
+    public int coordinateHashCode() {
+        x = (x + 1) & 15;
+        y = (y + 3) & 15;
+        return new GameBlockCoordinate(x, y).hashCode();
+    }
+}
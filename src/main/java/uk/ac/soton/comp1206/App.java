@@ -6,6 +6,7 @@ import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import uk.ac.soton.comp1206.scores.ScoreRepository;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 /**
@@ -67,6 +68,8 @@ public class App extends Application {
      */
     public void shutdown() {
         logger.info("Shutting down");
+        //Give any scores still being saved a moment to reach the disk
+        ScoreRepository.getInstance().flush(1000);
         System.exit(0);
     }
 
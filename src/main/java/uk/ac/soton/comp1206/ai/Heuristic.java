@@ -0,0 +1,42 @@
+package uk.ac.soton.comp1206.ai;
+
+/**
+ * Judges how good the grid left behind by a move is. Higher values are better.
+ */
+public interface Heuristic {
+
+    /**
+     * Evaluate the grid after a piece has been played and any full lines cleared
+     * @param rows occupancy of each row after the move, bit x set if the block in column x is filled
+     * @param cols number of columns
+     * @param lines number of lines the move cleared
+     * @param blocks number of blocks the move cleared
+     * @return how good the move is
+     */
+    double evaluate(long[] rows, int cols, int lines, int blocks);
+
+    /**
+     * The standard heuristic: points scored, plus a bonus for every empty block, minus a penalty for every empty block
+     * boxed in on all four sides, which only a Dot could ever fill.
+     * @return the standard heuristic
+     */
+    static Heuristic standard() {
+        return (rows, cols, lines, blocks) -> {
+            var full = -1L >>> (Long.SIZE - cols);
+            var empty = 0;
+            var trapped = 0;
+            for (var y = 0; y < rows.length; y++) {
+                var free = ~rows[y] & full;
+                empty += Long.bitCount(free);
+
+                //Empty blocks whose neighbours are all filled or off the edge
+                var left = (rows[y] << 1) | 1;
+                var right = (rows[y] >>> 1) | (1L << (cols - 1));
+                var above = y > 0 ? rows[y - 1] : full;
+                var below = y < rows.length - 1 ? rows[y + 1] : full;
+                trapped += Long.bitCount(free & left & right & above & below);
+            }
+            return lines * blocks * 10 + empty - 5.0 * trapped;
+        };
+    }
+}
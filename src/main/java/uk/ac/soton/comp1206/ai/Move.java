@@ -0,0 +1,91 @@
+package uk.ac.soton.comp1206.ai;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * A move found by a MoveSearch: optionally swap the current and following pieces, then play the given orientation
+ * with its centre at x, y.
+ */
+public class Move {
+
+    /**
+     * The piece to play, in the orientation to play it
+     */
+    private final GamePiece piece;
+
+    /**
+     * Placement X and Y
+     */
+    private final int x, y;
+
+    /**
+     * Whether to swap the current and following pieces before playing
+     */
+    private final boolean swap;
+
+    /**
+     * How good the heuristic judged the move to be
+     */
+    private final double value;
+
+    /**
+     * Create a new move
+     * @param piece the piece to play, in the orientation to play it
+     * @param x placement X
+     * @param y placement Y
+     * @param swap whether to swap pieces first
+     * @param value how good the move is
+     */
+    public Move(GamePiece piece, int x, int y, boolean swap, double value) {
+        this.piece = piece;
+        this.x = x;
+        this.y = y;
+        this.swap = swap;
+        this.value = value;
+    }
+
+    /**
+     * @return the piece to play, in the orientation to play it
+     */
+    public GamePiece getPiece() {
+        return piece;
+    }
+
+    /**
+     * @return placement X
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * @return placement Y
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * @return true if the current and following pieces should be swapped before playing
+     */
+    public boolean isSwap() {
+        return swap;
+    }
+
+    /**
+     * @return how good the heuristic judged the move to be, higher is better
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Return a string representation of this move
+     * @return string representation
+     */
+    @Override
+    public String toString() {
+        return "Move [" + (swap ? "swap, " : "") + piece + " rotation " + piece.getRotation() + " at " + x + ", " + y
+            + " = " + value + "]";
+    }
+}
@@ -0,0 +1,253 @@
+package uk.ac.soton.comp1206.ai;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * Finds the best move for the current position of a game, for a computer player, hints or load testing.
+ *
+ * Every distinct rotation of the current piece, and optionally of the following piece after a swap, is tried at every
+ * position of the grid. Each legal placement is played out on a copy of the row occupancy masks, full lines are cleared
+ * and the result is scored by a Heuristic. The work is split by piece orientation and row and fanned out across cores
+ * with fork/join.
+ */
+public class MoveSearch {
+
+    /**
+     * The most placements one task will try before splitting its work in two
+     */
+    private static final int THRESHOLD = 256;
+
+    /**
+     * The heuristic used to score moves
+     */
+    private final Heuristic heuristic;
+
+    /**
+     * The pool the search runs on
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a new search using the given heuristic on the common fork/join pool
+     * @param heuristic the heuristic used to score moves
+     */
+    public MoveSearch(Heuristic heuristic) {
+        this(heuristic, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a new search using the given heuristic and pool
+     * @param heuristic the heuristic used to score moves
+     * @param pool the pool to run on
+     */
+    public MoveSearch(Heuristic heuristic, ForkJoinPool pool) {
+        this.heuristic = heuristic;
+        this.pool = pool;
+    }
+
+    /**
+     * Find the best move in a game. Must be called from the thread running the engine, or while it is not running.
+     * @param engine the game
+     * @param includeSwap whether to consider swapping pieces first
+     * @return the best move, or null if the piece fits nowhere
+     */
+    public Move search(GameEngine engine, boolean includeSwap) {
+        return search(engine.getGrid(), engine.getCurrentPiece(), engine.getFollowingPiece(), includeSwap);
+    }
+
+    /**
+     * Find the best move for the given grid and pieces. The grid is copied before the search fans out, so only needs
+     * to stay still for the start of the call.
+     * @param grid the grid to play on
+     * @param current the piece to play
+     * @param following the piece after it, played instead if swapping
+     * @param includeSwap whether to consider swapping pieces first
+     * @return the best move, or null if no piece fits anywhere
+     */
+    public Move search(Grid grid, GamePiece current, GamePiece following, boolean includeSwap) {
+        var rows = new long[grid.getRows()];
+        for (var y = 0; y < rows.length; y++) {
+            rows[y] = grid.getRowMask(y);
+        }
+
+        var candidates = new ArrayList<GamePiece>();
+        addOrientations(candidates, current);
+        var swapFrom = candidates.size();
+        if (includeSwap && following != null) {
+            addOrientations(candidates, following);
+        }
+
+        var search = new Search(heuristic, rows, grid.getCols(), candidates.toArray(GamePiece[]::new), swapFrom);
+        var task = new SearchTask(search, 0, search.pieces.length * rows.length);
+
+        //Small searches are quicker done straight away than handed to the pool
+        if (search.pieces.length * rows.length * search.cols <= THRESHOLD) {
+            return task.compute();
+        }
+        return pool.invoke(task);
+    }
+
+    /**
+     * Add every rotation of a piece which has a different shape to the rotations already added
+     * @param candidates the orientations to try
+     * @param piece the piece
+     */
+    private static void addOrientations(ArrayList<GamePiece> candidates, GamePiece piece) {
+        var first = candidates.size();
+        for (var rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+            var orientation = piece.rotate(rotation);
+            var duplicate = false;
+            for (var i = first; i < candidates.size(); i++) {
+                if (sameShape(candidates.get(i), orientation)) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) candidates.add(orientation);
+        }
+    }
+
+    /**
+     * Check whether two orientations cover the same blocks relative to their centre
+     * @param a first orientation
+     * @param b second orientation
+     * @return true if they have the same shape
+     */
+    private static boolean sameShape(GamePiece a, GamePiece b) {
+        return a.getMask() == b.getMask();
+    }
+
+    /**
+     * The shared, read only input to a search
+     */
+    private static class Search {
+        final Heuristic heuristic;
+        final long[] rows;
+        final int cols;
+        final long fullRow;
+        final GamePiece[] pieces;
+        final int swapFrom;
+
+        Search(Heuristic heuristic, long[] rows, int cols, GamePiece[] pieces, int swapFrom) {
+            this.heuristic = heuristic;
+            this.rows = rows;
+            this.cols = cols;
+            this.fullRow = -1L >>> (Long.SIZE - cols);
+            this.pieces = pieces;
+            this.swapFrom = swapFrom;
+        }
+    }
+
+    /**
+     * Searches a range of work units, where each unit is one orientation in one row
+     */
+    private static final class SearchTask extends RecursiveTask<Move> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Search search;
+        private final int from, to;
+
+        SearchTask(Search search, int from, int to) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Move compute() {
+            if ((to - from) * search.cols <= THRESHOLD || to - from == 1) {
+                return searchRange();
+            }
+            var middle = (from + to) >>> 1;
+            var left = new SearchTask(search, from, middle);
+            left.fork();
+            var right = new SearchTask(search, middle, to).compute();
+            return better(left.join(), right);
+        }
+
+        /**
+         * Try every placement in this task's range
+         * @return the best move found, or null if nothing fits
+         */
+        private Move searchRange() {
+            var rows = search.rows;
+            var scratch = new long[rows.length];
+            Move best = null;
+
+            for (var unit = from; unit < to; unit++) {
+                var piece = search.pieces[unit / rows.length];
+                var y = unit % rows.length;
+                if (y + piece.getMinY() < 0 || y + piece.getMaxY() >= rows.length) continue;
+
+                for (var x = -piece.getMinX(); x + piece.getMaxX() < search.cols; x++) {
+                    var value = evaluate(piece, x, y, scratch);
+                    if (!Double.isNaN(value) && (best == null || value > best.getValue())) {
+                        best = new Move(piece, x, y, unit / rows.length >= search.swapFrom, value);
+                    }
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Play a piece on a copy of the grid, clear any full lines and score the result
+         * @param piece the orientation to play
+         * @param x placement X
+         * @param y placement Y
+         * @param scratch array to play the move out in
+         * @return the value of the move, or NaN if the piece does not fit
+         */
+        private double evaluate(GamePiece piece, int x, int y, long[] scratch) {
+            var rows = search.rows;
+            var left = x + piece.getMinX();
+            for (var offsetY = piece.getMinY(); offsetY <= piece.getMaxY(); offsetY++) {
+                if ((rows[y + offsetY] & ((long) piece.getRowBits(offsetY) << left)) != 0) return Double.NaN;
+            }
+
+            System.arraycopy(rows, 0, scratch, 0, rows.length);
+            for (var offsetY = piece.getMinY(); offsetY <= piece.getMaxY(); offsetY++) {
+                scratch[y + offsetY] |= (long) piece.getRowBits(offsetY) << left;
+            }
+
+            //Full columns are the blocks filled in every row
+            var fullCols = search.fullRow;
+            for (var row : scratch) {
+                fullCols &= row;
+            }
+            var fullRows = 0;
+            for (var offsetY = piece.getMinY(); offsetY <= piece.getMaxY(); offsetY++) {
+                if (scratch[y + offsetY] == search.fullRow) {
+                    scratch[y + offsetY] = 0;
+                    fullRows++;
+                }
+            }
+            var clearedCols = Long.bitCount(fullCols);
+            if (clearedCols > 0) {
+                for (var row = 0; row < scratch.length; row++) {
+                    scratch[row] &= ~fullCols;
+                }
+            }
+
+            var lines = fullRows + clearedCols;
+            var blocks = fullRows * search.cols + clearedCols * rows.length - fullRows * clearedCols;
+            return search.heuristic.evaluate(scratch, search.cols, lines, blocks);
+        }
+    }
+
+    /**
+     * Pick the better of two moves, preferring the first when they are equal
+     * @param a first move, or null
+     * @param b second move, or null
+     * @return the better move
+     */
+    private static Move better(Move a, Move b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return b.getValue() > a.getValue() ? b : a;
+    }
+}
@@ -0,0 +1,141 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.HashMap;
+import java.util.Map;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+/**
+ * Pre-rendered images of a block at one size, in every colour and with every combination of the centre dot and the
+ * hover highlight. Each image is drawn the first time it is needed and then reused, so painting a block is a single
+ * drawImage.
+ *
+ * Only used on the JavaFX thread. Images are drawn at the block's logical size and scaled with the rest of the scene by
+ * the GamePane, so resizing the window never needs them drawn again.
+ */
+public class BlockSprites {
+
+    /**
+     * The sprites for each block size, keyed by width and height
+     */
+    private static final Map<Long, BlockSprites> cache = new HashMap<>();
+
+    /**
+     * Size of the blocks
+     */
+    private final double width, height;
+
+    /**
+     * The images drawn so far, indexed by value * 4 + centre * 2 + hover
+     */
+    private final Image[] images = new Image[GameBlock.COLOURS.length * 4];
+
+    /**
+     * Create the sprites for a block size
+     * @param width block width
+     * @param height block height
+     */
+    private BlockSprites(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Get the sprites for a block size
+     * @param width block width
+     * @param height block height
+     * @return the sprites
+     */
+    public static BlockSprites forSize(double width, double height) {
+        var key = (long) Float.floatToIntBits((float) width) << 32 | Float.floatToIntBits((float) height);
+        return cache.computeIfAbsent(key, k -> new BlockSprites(width, height));
+    }
+
+    /**
+     * Get the image of a block
+     * @param value the block's value, 0 for empty
+     * @param centre whether to show the centre dot
+     * @param hover whether to show the hover highlight
+     * @return the image, width by height
+     */
+    public Image get(int value, boolean centre, boolean hover) {
+        var index = value * 4 + (centre ? 2 : 0) + (hover ? 1 : 0);
+        var image = images[index];
+        if (image == null) {
+            image = draw(value, centre, hover);
+            images[index] = image;
+        }
+        return image;
+    }
+
+    /**
+     * Draw the image of a block
+     * @param value the block's value, 0 for empty
+     * @param centre whether to show the centre dot
+     * @param hover whether to show the hover highlight
+     * @return the image
+     */
+    private Image draw(int value, boolean centre, boolean hover) {
+        var canvas = new Canvas(Math.ceil(width), Math.ceil(height));
+        var gc = canvas.getGraphicsContext2D();
+
+        //If the block is empty, paint as empty
+        if (value == 0) {
+            paintEmpty(gc);
+        } else {
+            //If the block is not empty, paint with the colour represented by the value
+            paintColor(gc, GameBlock.COLOURS[value]);
+        }
+
+        if (centre) {
+            gc.setFill(Color.rgb(255,255,255,0.5));
+            gc.fillOval(width/4, height/4, width/2, height/2);
+        }
+
+        if (hover) {
+            gc.setFill(Color.rgb(204,204,204,0.4));
+            gc.fillRect(0,0,width,height);
+        }
+
+        var parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(parameters, null);
+    }
+
+    /**
+     * Paint an empty block
+     * @param gc where to paint
+     */
+    private void paintEmpty(GraphicsContext gc) {
+        //Border
+        gc.setStroke(Color.BLACK);
+        gc.strokeRect(0,0,width,height);
+    }
+
+    /**
+     * Paint a block in the given colour
+     * @param gc where to paint
+     * @param colour the colour to paint
+     */
+    private void paintColor(GraphicsContext gc, Paint colour) {
+        //Colour fill
+        gc.setFill(colour);
+        gc.fillRect(0,0, width, height);
+
+        // To create 3D effect
+        gc.setFill(Color.rgb(59, 59, 59, 0.2));
+        gc.fillPolygon(new double[]{0, 0, width}, new double[]{0, height, height}, 3);
+        gc.setFill(Color.rgb(161, 161, 161, 0.3));
+        gc.fillRect(0, 0, 3, height);
+        gc.setFill(Color.rgb(255, 255, 255, 0.3));
+        gc.fillRect(0, 0, width, 3);
+
+        //Border
+        gc.setStroke(Color.rgb(0,0,0,0.6));
+        gc.strokeRect(0,0,width,height);
+    }
+}
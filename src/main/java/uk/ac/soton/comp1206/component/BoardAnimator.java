@@ -0,0 +1,221 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.concurrent.TimeUnit;
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Runs every animation on the blocks of a GameBoard from a single pulse callback.
+ *
+ * Each block can have one effect running on it. Effects are timed from the pulse timestamps rather than counted in
+ * frames, so they take the same time whatever the frame rate. The state of every block lives in arrays indexed by
+ * block, so starting and finishing effects allocates nothing, and the timer only runs while an effect is active.
+ */
+public class BoardAnimator {
+
+    /**
+     * No effect
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The block is emptied and fades out from green, as when its line is cleared
+     */
+    public static final int FADE = 1;
+
+    /**
+     * The block flashes white
+     */
+    public static final int FLASH = 2;
+
+    /**
+     * The block grows from its centre, as when a piece lands
+     */
+    public static final int SPAWN = 3;
+
+    /**
+     * How long each effect lasts, in nanoseconds, indexed by effect
+     */
+    private static final long[] DURATIONS = {
+        0,
+        TimeUnit.MILLISECONDS.toNanos(550),
+        TimeUnit.MILLISECONDS.toNanos(250),
+        TimeUnit.MILLISECONDS.toNanos(200)
+    };
+
+    /**
+     * The colours faded and flashed over blocks, made transparent with the global alpha so painting allocates nothing
+     */
+    private static final Color FADE_COLOUR = Color.color(0, 1.0, 0);
+    private static final Color FLASH_COLOUR = Color.color(1.0, 1.0, 1.0);
+
+    /**
+     * The board being animated
+     */
+    private final GameBoard board;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * The effect running on each block, indexed by y * cols + x
+     */
+    private final int[] effects;
+
+    /**
+     * When each block's effect started, or -1 if it starts on the next pulse
+     */
+    private final long[] starts;
+
+    /**
+     * The blocks with an effect running, in the first active entries
+     */
+    private final int[] active;
+    private int activeCount = 0;
+
+    /**
+     * The time of the latest pulse
+     */
+    private long frameTime = 0;
+
+    /**
+     * Whether the timer is running
+     */
+    private boolean running = false;
+
+    /**
+     * Drives every effect once per pulse
+     */
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            pulse(now);
+        }
+    };
+
+    /**
+     * Create a new animator for a board
+     * @param board the board
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    BoardAnimator(GameBoard board, int cols, int rows) {
+        this.board = board;
+        this.cols = cols;
+        this.effects = new int[cols * rows];
+        this.starts = new long[cols * rows];
+        this.active = new int[cols * rows];
+    }
+
+    /**
+     * Start an effect on a block, replacing any effect already running on it
+     * @param x column
+     * @param y row
+     * @param effect FADE, FLASH or SPAWN
+     */
+    public void start(int x, int y, int effect) {
+        var index = y * cols + x;
+        if (effects[index] == NONE) {
+            active[activeCount++] = index;
+        }
+        effects[index] = effect;
+        starts[index] = -1;
+        board.repaintBlock(x, y);
+
+        if (!running) {
+            running = true;
+            timer.start();
+        }
+    }
+
+    /**
+     * Move every effect on, repainting the blocks they are running on and recycling the ones which have finished
+     * @param now the time of the pulse
+     */
+    private void pulse(long now) {
+        frameTime = now;
+        var i = 0;
+        while (i < activeCount) {
+            var index = active[i];
+            if (starts[index] < 0) starts[index] = now;
+            if (now - starts[index] >= DURATIONS[effects[index]]) {
+                effects[index] = NONE;
+                active[i] = active[--activeCount];
+            } else {
+                i++;
+            }
+            board.repaintBlock(index % cols, index / cols);
+        }
+
+        if (activeCount == 0) {
+            running = false;
+            timer.stop();
+        }
+    }
+
+    /**
+     * Paint a block, including any effect running on it
+     * @param gc where to paint
+     * @param sprites the images to paint from
+     * @param x column
+     * @param y row
+     * @param value the block's value
+     * @param centre whether to show the centre dot
+     * @param hover whether to show the hover highlight
+     * @param left left edge of the block
+     * @param top top edge of the block
+     * @param width block width
+     * @param height block height
+     */
+    void paintBlock(GraphicsContext gc, BlockSprites sprites, int x, int y, int value, boolean centre,
+                    boolean hover, double left, double top, double width, double height) {
+        var index = y * cols + x;
+        var effect = effects[index];
+        gc.clearRect(left, top, width, height);
+        if (effect == NONE) {
+            gc.drawImage(sprites.get(value, centre, hover), left, top, width, height);
+            return;
+        }
+
+        var start = starts[index];
+        var progress = start < 0 ? 0 : Math.min(1, (double) (frameTime - start) / DURATIONS[effect]);
+        switch (effect) {
+            case FADE:
+                gc.drawImage(sprites.get(0, centre, hover), left, top, width, height);
+                fill(gc, FADE_COLOUR, 1 - progress, left, top, width, height);
+                break;
+            case FLASH:
+                gc.drawImage(sprites.get(value, centre, hover), left, top, width, height);
+                fill(gc, FLASH_COLOUR, 0.8 * (1 - progress), left, top, width, height);
+                break;
+            case SPAWN:
+                gc.drawImage(sprites.get(0, centre, hover), left, top, width, height);
+                var grownWidth = width * progress;
+                var grownHeight = height * progress;
+                gc.drawImage(sprites.get(value, centre, hover), left + (width - grownWidth) / 2,
+                    top + (height - grownHeight) / 2, grownWidth, grownHeight);
+                break;
+        }
+    }
+
+    /**
+     * Fill a block with a colour at an opacity, then set the global alpha back to opaque
+     * @param gc where to paint
+     * @param colour the colour
+     * @param alpha the opacity, from 0 to 1
+     * @param left left edge of the block
+     * @param top top edge of the block
+     * @param width block width
+     * @param height block height
+     */
+    private static void fill(GraphicsContext gc, Color colour, double alpha, double left, double top, double width,
+                             double height) {
+        gc.setGlobalAlpha(alpha);
+        gc.setFill(colour);
+        gc.fillRect(left, top, width, height);
+        gc.setGlobalAlpha(1);
+    }
+}
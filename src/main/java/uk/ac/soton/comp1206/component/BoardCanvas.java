@@ -0,0 +1,276 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import uk.ac.soton.comp1206.event.GridListener;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.PlacementMap;
+
+/**
+ * Draws a whole grid into a single Canvas, for a GameBoard in single canvas mode.
+ *
+ * Blocks which change are marked dirty, and only the dirty blocks are repainted, once per pulse, however many times
+ * they changed in between. Each block is drawn entirely inside its own cell, so a block can be repainted without
+ * touching its neighbours. Blocks are drawn from the same pre-rendered images as GameBlocks, and
+ * effects such as fades are run by the board's BoardAnimator, which marks the blocks it animates dirty each pulse.
+ *
+ * When given a ghost piece, the footprint of the piece under the hovered block is shaded to show whether it fits
+ * there, looked up in a PlacementMap which is only worked out again when the grid or piece changes.
+ */
+class BoardCanvas extends Canvas implements GridListener {
+
+    /**
+     * Shades for the ghost piece where it fits and where it does not
+     */
+    private static final Color GHOST_VALID = Color.rgb(255, 255, 255, 0.35);
+    private static final Color GHOST_INVALID = Color.rgb(255, 0, 0, 0.35);
+
+    /**
+     * The grid being drawn
+     */
+    private final Grid grid;
+
+    /**
+     * Number of columns and rows
+     */
+    private final int cols, rows;
+
+    /**
+     * Size of each block
+     */
+    private final double blockWidth, blockHeight;
+
+    /**
+     * The pre-rendered images the blocks are painted from
+     */
+    private final BlockSprites sprites;
+
+    /**
+     * The blocks needing a repaint, one mask per row with bit x set for column x
+     */
+    private final long[] dirty;
+
+    /**
+     * The animator running effects on the blocks
+     */
+    private final BoardAnimator animator;
+
+    /**
+     * The block being hovered, or -1
+     */
+    private int hoverX = -1, hoverY = -1;
+
+    /**
+     * The block marked as the centre, or -1
+     */
+    private int centreX = -1, centreY = -1;
+
+    /**
+     * The piece previewed under the hovered block, or null for none
+     */
+    private GamePiece ghost;
+
+    /**
+     * Where the ghost piece fits
+     */
+    private final PlacementMap placements;
+
+    /**
+     * Whether the repaint timer is running
+     */
+    private boolean scheduled = false;
+
+    /**
+     * Runs once per pulse while there is anything to repaint
+     */
+    private final AnimationTimer pulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            repaint();
+        }
+    };
+
+    /**
+     * Create a new canvas drawing the given grid
+     * @param grid the grid to draw
+     * @param width the visual width
+     * @param height the visual height
+     * @param animator the animator running effects on the blocks
+     */
+    BoardCanvas(Grid grid, double width, double height, BoardAnimator animator) {
+        super(width, height);
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        this.blockWidth = width / cols;
+        this.blockHeight = height / rows;
+        this.sprites = BlockSprites.forSize(blockWidth, blockHeight);
+        this.dirty = new long[rows];
+        this.animator = animator;
+        this.placements = new PlacementMap(rows);
+
+        grid.setOnGridChanged(this);
+        markAll();
+        repaint();
+    }
+
+    /**
+     * Work out which column an x position on the canvas falls in
+     * @param x x position
+     * @return the column, or -1 if outside the board
+     */
+    int columnAt(double x) {
+        var col = (int) Math.floor(x / blockWidth);
+        return col >= 0 && col < cols ? col : -1;
+    }
+
+    /**
+     * Work out which row a y position on the canvas falls in
+     * @param y y position
+     * @return the row, or -1 if outside the board
+     */
+    int rowAt(double y) {
+        var row = (int) Math.floor(y / blockHeight);
+        return row >= 0 && row < rows ? row : -1;
+    }
+
+    /**
+     * Mark a block as changed when the grid changes
+     * @param x column of the block
+     * @param y row of the block
+     * @param value the new value
+     */
+    @Override
+    public void gridChanged(int x, int y, int value) {
+        mark(x, y);
+        //The ghost may now fit where it did not, or the other way round
+        markGhost();
+    }
+
+    /**
+     * Show a block as hovered, moving the hover off any other block
+     * @param x column, or -1 for none
+     * @param y row, or -1 for none
+     */
+    void hover(int x, int y) {
+        if (x == hoverX && y == hoverY) return;
+        mark(hoverX, hoverY);
+        markGhost();
+        hoverX = x;
+        hoverY = y;
+        mark(x, y);
+        markGhost();
+    }
+
+    /**
+     * Preview a piece under the hovered block
+     * @param piece the piece, in the rotation to be played, or null to stop previewing
+     */
+    void ghost(GamePiece piece) {
+        if (piece == ghost) return;
+        markGhost();
+        ghost = piece;
+        markGhost();
+    }
+
+    /**
+     * Mark a block as the centre of the board
+     * @param x column
+     * @param y row
+     */
+    void centre(int x, int y) {
+        mark(centreX, centreY);
+        centreX = x;
+        centreY = y;
+        mark(x, y);
+    }
+
+    /**
+     * Mark a block as needing a repaint on the next pulse
+     * @param x column
+     * @param y row
+     */
+    void mark(int x, int y) {
+        if (x < 0 || y < 0 || x >= cols || y >= rows) return;
+        dirty[y] |= 1L << x;
+        if (!scheduled) {
+            scheduled = true;
+            pulse.start();
+        }
+    }
+
+    /**
+     * Mark every block under the ghost piece as needing a repaint
+     */
+    private void markGhost() {
+        if (ghost == null || hoverX < 0) return;
+        for (var block = 0; block < ghost.getBlockCount(); block++) {
+            mark(hoverX + ghost.getOffsetX(block), hoverY + ghost.getOffsetY(block));
+        }
+    }
+
+    /**
+     * Check whether a block is under the ghost piece
+     * @param x column
+     * @param y row
+     * @return true if it is covered by the ghost
+     */
+    private boolean underGhost(int x, int y) {
+        if (ghost == null || hoverX < 0) return false;
+        var offsetX = x - hoverX + 1;
+        var offsetY = y - hoverY + 1;
+        if (offsetX < 0 || offsetX > 2 || offsetY < 0 || offsetY > 2) return false;
+        return (ghost.getMask() & (1 << (offsetX + 3 * offsetY))) != 0;
+    }
+
+    /**
+     * Mark every block as needing a repaint
+     */
+    private void markAll() {
+        for (var y = 0; y < rows; y++) {
+            for (var x = 0; x < cols; x++) {
+                mark(x, y);
+            }
+        }
+    }
+
+    /**
+     * Repaint the dirty blocks, then stop the timer until something else changes
+     */
+    private void repaint() {
+        if (ghost != null) placements.update(grid, ghost);
+
+        var gc = getGraphicsContext2D();
+        for (var y = 0; y < rows; y++) {
+            var row = dirty[y];
+            dirty[y] = 0;
+            while (row != 0) {
+                var x = Long.numberOfTrailingZeros(row);
+                row &= row - 1;
+                paintBlock(gc, x, y);
+            }
+        }
+
+        scheduled = false;
+        pulse.stop();
+    }
+
+    /**
+     * Paint one block, entirely within its own cell
+     * @param gc the canvas to paint on
+     * @param x column
+     * @param y row
+     */
+    private void paintBlock(GraphicsContext gc, int x, int y) {
+        animator.paintBlock(gc, sprites, x, y, grid.get(x, y), x == centreX && y == centreY,
+            x == hoverX && y == hoverY, x * blockWidth, y * blockHeight, blockWidth, blockHeight);
+
+        if (underGhost(x, y)) {
+            gc.setFill(placements.isValid(hoverX, hoverY) ? GHOST_VALID : GHOST_INVALID);
+            gc.fillRect(x * blockWidth, y * blockHeight, blockWidth, blockHeight);
+        }
+    }
+}
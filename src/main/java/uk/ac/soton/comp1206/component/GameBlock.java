@@ -1,11 +1,10 @@
 package uk.ac.soton.comp1206.component;
 
-import javafx.animation.AnimationTimer;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.paint.*;
+import javafx.scene.paint.Color;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -63,6 +62,11 @@ public class GameBlock extends Canvas {
      * The value of this block (0 = empty, otherwise specifies the colour to render as)
      */
     private final IntegerProperty value = new SimpleIntegerProperty(0);
+    /**
+     * The pre-rendered images this block is painted from
+     */
+    private final BlockSprites sprites;
+
     /**
      * Whether the center of the pieceBoard should be shown
      */
@@ -86,6 +90,7 @@ public class GameBlock extends Canvas {
         this.height = height;
         this.x = x;
         this.y = y;
+        this.sprites = BlockSprites.forSize(width, height);
 
         //A canvas needs a fixed width and height
         setWidth(width);
@@ -109,97 +114,19 @@ public class GameBlock extends Canvas {
     }
 
     /**
-     * Handle painting of the block canvas
+     * Handle painting of the block canvas, by drawing the pre-rendered image for its value, centre and hover, along
+     * with any effect the board is running on it
      */
     public void paint() {
-        //If the block is empty, paint as empty
-        if(value.get() == 0) {
-            paintEmpty();
-        } else {
-            //If the block is not empty, paint with the colour represented by the value
-            paintColor(COLOURS[value.get()]);
-        }
-
-        if (this.center) {
-            var gc = getGraphicsContext2D();
-
-            gc.setFill(Color.rgb(255,255,255,0.5));
-            gc.fillOval(width/4, height/4, width/2, height/2);
-        }
-
-        if (this.hover) {
-            var gc = getGraphicsContext2D();
-
-            gc.setFill(Color.rgb(204,204,204,0.4));
-            gc.fillRect(0,0,width,height);
-        }
-    }
-
-    /**
-     * Paint this canvas empty
-     */
-    private void paintEmpty() {
-        var gc = getGraphicsContext2D();
-
-        //Clear
-        gc.clearRect(0,0,width,height);
-
-        //Fill
-        gc.setFill(Color.TRANSPARENT);
-        gc.fillRect(0,0, width, height);
-
-        //Border
-        gc.setStroke(Color.BLACK);
-        gc.strokeRect(0,0,width,height);
-    }
-
-    /**
-     * Paint this canvas with the given colour
-     * @param colour the colour to paint
-     */
-    private void paintColor(Paint colour) {
-        var gc = getGraphicsContext2D();
-
-        //Clear
-        gc.clearRect(0,0,width,height);
-
-        //Colour fill
-        gc.setFill(colour);
-        gc.fillRect(0,0, width, height);
-
-        // To create 3D effect
-        gc.setFill(Color.rgb(59, 59, 59, 0.2));
-        gc.fillPolygon(new double[]{0, 0, width}, new double[]{0, height, height}, 3);
-        gc.setFill(Color.rgb(161, 161, 161, 0.3));
-        gc.fillRect(0, 0, 3, height);
-        gc.setFill(Color.rgb(255, 255, 255, 0.3));
-        gc.fillRect(0, 0, width, 3);
-
-        //Border
-        gc.setStroke(Color.rgb(0,0,0,0.6));
-        gc.strokeRect(0,0,width,height);
+        gameBoard.getAnimator().paintBlock(getGraphicsContext2D(), sprites, x, y, value.get(), center, hover,
+            0, 0, width, height);
     }
 
     /**
      * Animates the fadeOut when a line is cleared
      */
     public void fadeOut() {
-        AnimationTimer timer = new AnimationTimer() {
-            double opacity = 1;
-            @Override
-            public void handle(long now) {
-                GameBlock.this.paintEmpty();
-                opacity -= 0.03;
-                if (opacity <= 0) {
-                    stop();
-                    return;
-                }
-                var gc = getGraphicsContext2D();
-                gc.setFill(Color.color(0,1.0,0,opacity));
-                gc.fillRect(0,0 ,GameBlock.this.width, GameBlock.this.height);
-            }
-        };
-        timer.start();
+        gameBoard.animate(x, y, BoardAnimator.FADE);
     }
 
 
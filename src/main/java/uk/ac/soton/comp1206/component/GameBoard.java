@@ -16,6 +16,10 @@ import uk.ac.soton.comp1206.ui.GamePane;
  * A GameBoard is a visual component to represent the visual GameBoard.
  * It extends a GridPane to hold a grid of GameBlocks.
  *
+ * In single canvas mode the board instead holds one Canvas which draws every block, repainting only the blocks which
+ * changed, and works out which block was clicked from the mouse position. The scene graph stays the same size however
+ * big the board is.
+ *
  * The GameBoard can hold an internal grid of it's own, for example, for displaying an upcoming block. It also be
  * linked to an external grid, for the main game board.
  *
@@ -26,6 +30,11 @@ public class GameBoard extends GridPane {
 
     private static final Logger logger = LogManager.getLogger(GameBoard.class);
 
+    /**
+     * The system property which, when true, draws the main challenge board on a single canvas. Off by default.
+     */
+    public static final String CANVAS_PROPERTY = "tetrecs.board.canvas";
+
     /**
      * Number of columns in the board
      */
@@ -52,7 +61,27 @@ public class GameBoard extends GridPane {
     final Grid grid;
 
     /**
-     * The blocks inside the grid
+     * Whether the whole board is drawn on a single canvas instead of one GameBlock per block
+     */
+    private final boolean singleCanvas;
+
+    /**
+     * The canvas drawing the board, in single canvas mode
+     */
+    private BoardCanvas canvas;
+
+    /**
+     * Runs the effects on the blocks of this board
+     */
+    private BoardAnimator animator;
+
+    /**
+     * The JavaFX properties view of the grid, which the blocks are bound to
+     */
+    private GridProperties gridProperties;
+
+    /**
+     * The blocks inside the grid, or null in single canvas mode
      */
     public GameBlock[][] blocks;
 
@@ -74,11 +103,24 @@ public class GameBoard extends GridPane {
      * @param height the visual height
      */
     public GameBoard(Grid grid, double width, double height) {
+        this(grid, width, height, false);
+    }
+
+    /**
+     * Create a new GameBoard, based off a given grid, with a visual width and height, optionally drawn on a single
+     * canvas.
+     * @param grid linked grid
+     * @param width the visual width
+     * @param height the visual height
+     * @param singleCanvas whether to draw the whole board on one canvas
+     */
+    public GameBoard(Grid grid, double width, double height, boolean singleCanvas) {
         this.cols = grid.getCols();
         this.rows = grid.getRows();
         this.width = width;
         this.height = height;
         this.grid = grid;
+        this.singleCanvas = singleCanvas;
 
         //Build the GameBoard
         build();
@@ -99,6 +141,7 @@ public class GameBoard extends GridPane {
         this.width = width;
         this.height = height;
         this.grid = new Grid(cols,rows);
+        this.singleCanvas = false;
 
         //Build the GameBoard
         build();
@@ -108,10 +151,10 @@ public class GameBoard extends GridPane {
      * Get a specific block from the GameBoard, specified by it's row and column
      * @param x column
      * @param y row
-     * @return game block at the given column and row
+     * @return game block at the given column and row, or null in single canvas mode
      */
     public GameBlock getBlock(int x, int y) {
-        return blocks[x][y];
+        return blocks == null ? null : blocks[x][y];
     }
 
     /**
@@ -123,9 +166,17 @@ public class GameBoard extends GridPane {
         setMaxWidth(width);
         setMaxHeight(height);
 
+        animator = new BoardAnimator(this, cols, rows);
+
+        if (singleCanvas) {
+            buildCanvas();
+            return;
+        }
+
         setGridLinesVisible(true);
 
         blocks = new GameBlock[cols][rows];
+        gridProperties = new GridProperties(grid);
 
         for(var y = 0; y < rows; y++) {
             for (var x = 0; x < cols; x++) {
@@ -134,6 +185,31 @@ public class GameBoard extends GridPane {
         }
     }
 
+    /**
+     * Build the board as a single canvas, with mouse handlers working out which block the mouse is over
+     */
+    private void buildCanvas() {
+        canvas = new BoardCanvas(grid, width, height, animator);
+        add(canvas, 0, 0);
+
+        canvas.setOnMouseClicked((e) -> {
+            if (e.getButton() == MouseButton.PRIMARY) {
+                var x = canvas.columnAt(e.getX());
+                var y = canvas.rowAt(e.getY());
+                if (x >= 0 && y >= 0) blockClicked(x, y);
+            } else {
+                boardClicked(e);
+            }
+        });
+
+        canvas.setOnMouseMoved((e) -> {
+            var x = canvas.columnAt(e.getX());
+            var y = canvas.rowAt(e.getY());
+            canvas.hover(y < 0 ? -1 : x, x < 0 ? -1 : y);
+        });
+        canvas.setOnMouseExited((e) -> canvas.hover(-1, -1));
+    }
+
     /**
      * Create a block at the given x and y position in the GameBoard
      * @param x column
@@ -154,12 +230,12 @@ public class GameBoard extends GridPane {
         blocks[x][y] = block;
 
         //Link the GameBlock component to the corresponding value in the Grid
-        block.bind(grid.getGridProperty(x,y));
+        block.bind(gridProperties.getGridProperty(x,y));
 
         //Add a mouse click handler to the block to trigger GameBoard blockClicked method
         block.setOnMouseClicked((e) -> {
             if (e.getButton() == MouseButton.PRIMARY) {
-                blockClicked(e, block);
+                blockClicked(block.getX(), block.getY());
             } else {
                 boardClicked(e);
             }
@@ -182,6 +258,43 @@ public class GameBoard extends GridPane {
         gameBlock.hover(true);
     }
 
+    /**
+     * Show the block at the given column and row as hovered
+     * @param x column
+     * @param y row
+     */
+    public void hover(int x, int y) {
+        if (canvas != null) {
+            canvas.hover(x, y);
+        } else {
+            hover(getBlock(x, y));
+        }
+    }
+
+    /**
+     * Preview the footprint of a piece under the hovered block, shaded by whether it fits there. Only shown in single
+     * canvas mode.
+     * @param piece the piece, in the rotation to be played, or null to stop previewing
+     */
+    public void setGhostPiece(GamePiece piece) {
+        if (canvas != null) {
+            canvas.ghost(piece);
+        }
+    }
+
+    /**
+     * Mark the block at the given column and row as the centre of the board
+     * @param x column
+     * @param y row
+     */
+    public void center(int x, int y) {
+        if (canvas != null) {
+            canvas.centre(x, y);
+        } else {
+            getBlock(x, y).center();
+        }
+    }
+
     /**
      * Set the listener to handle an event when a block is clicked
      * @param listener listener to add
@@ -200,12 +313,12 @@ public class GameBoard extends GridPane {
 
     /**
      * Triggered when a block is clicked. Call the attached listener.
-     * @param event mouse event
-     * @param block block clicked on
+     * @param x column of the block clicked on
+     * @param y row of the block clicked on
      */
-    private void blockClicked(MouseEvent event, GameBlock block) {
+    private void blockClicked(int x, int y) {
         if(blockClickedListener != null) {
-            blockClickedListener.blockClicked(block);
+            blockClickedListener.blockClicked(x, y);
         }
     }
 
@@ -221,7 +334,37 @@ public class GameBoard extends GridPane {
      */
     public void fadeOut(HashSet<GameBlockCoordinate> blockCoordinates) {
         for (GameBlockCoordinate coordinates : blockCoordinates) {
-            getBlock(coordinates.getX(), coordinates.getY()).fadeOut();
+            animator.start(coordinates.getX(), coordinates.getY(), BoardAnimator.FADE);
+        }
+    }
+
+    /**
+     * Start an effect on a block
+     * @param x column
+     * @param y row
+     * @param effect one of the BoardAnimator effects
+     */
+    public void animate(int x, int y, int effect) {
+        animator.start(x, y, effect);
+    }
+
+    /**
+     * @return the animator running the effects on this board's blocks
+     */
+    BoardAnimator getAnimator() {
+        return animator;
+    }
+
+    /**
+     * Repaint a block, for example because an effect on it has moved on
+     * @param x column
+     * @param y row
+     */
+    void repaintBlock(int x, int y) {
+        if (canvas != null) {
+            canvas.mark(x, y);
+        } else {
+            blocks[x][y].paint();
         }
     }
 }
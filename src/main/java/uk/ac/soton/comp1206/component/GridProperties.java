@@ -0,0 +1,64 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import uk.ac.soton.comp1206.event.GridListener;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * A JavaFX view of a Grid. Holds an IntegerProperty for every block which is kept in sync with the grid, so the
+ * blocks of a GameBoard can be bound to it.
+ *
+ * Properties are only created when they are first asked for, so a grid that is never displayed never pays for them.
+ */
+public class GridProperties implements GridListener {
+
+    /**
+     * The grid this view represents
+     */
+    private final Grid grid;
+
+    /**
+     * The properties for each block, created on first use
+     */
+    private final SimpleIntegerProperty[][] properties;
+
+    /**
+     * Create a new view of the given grid and attach it
+     * @param grid grid to view
+     */
+    public GridProperties(Grid grid) {
+        this.grid = grid;
+        this.properties = new SimpleIntegerProperty[grid.getCols()][grid.getRows()];
+        grid.setOnGridChanged(this);
+    }
+
+    /**
+     * Get the Integer property for a given row and column index. Can be used for binding.
+     * @param x column
+     * @param y row
+     * @return the IntegerProperty at the given x and y in the grid
+     */
+    public IntegerProperty getGridProperty(int x, int y) {
+        var property = properties[x][y];
+        if (property == null) {
+            property = new SimpleIntegerProperty(grid.get(x, y));
+            properties[x][y] = property;
+        }
+        return property;
+    }
+
+    /**
+     * Update the matching property when a block in the grid changes
+     * @param x column of the block
+     * @param y row of the block
+     * @param value the new value
+     */
+    @Override
+    public void gridChanged(int x, int y, int value) {
+        var property = properties[x][y];
+        if (property != null) {
+            property.set(value);
+        }
+    }
+}
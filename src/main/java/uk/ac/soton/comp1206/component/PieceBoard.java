@@ -39,18 +39,18 @@ public class PieceBoard extends GameBoard {
    */
   public void displayPiece(GamePiece piece) {
     logger.info("Piece to display: {}", piece.toString());
-    grid.playPiece(piece,1,1);
+    var centreX = grid.getCols() / 2;
+    var centreY = grid.getRows() / 2;
+    for (var block = 0; block < piece.getBlockCount(); block++) {
+      grid.set(centreX + piece.getOffsetX(block), centreY + piece.getOffsetY(block), piece.getValue());
     }
+  }
 
   /**
    * Clears the grid of any pieces to allow for another piece to be shown
    */
     public void clear() {
-    for (var x = 0; x < grid.getCols(); x++) {
-      for (var y = 0; y < grid.getRows(); y++) {
-        grid.set(x,y,0);
-      }
-    }
+    grid.clear();
     }
 
 }
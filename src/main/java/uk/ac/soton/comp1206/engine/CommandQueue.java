@@ -0,0 +1,104 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A queue of commands which are run one at a time, in the order they were submitted, so that only one thread is ever
+ * changing the state behind the queue. Any thread can submit a command without blocking.
+ *
+ * Commands are run on a pool shared by every queue. Whenever the queue has been emptied, the after batch callback is
+ * run, which is where the results of a batch of commands can be published in one go.
+ */
+public class CommandQueue {
+
+    private static final Logger logger = LogManager.getLogger(CommandQueue.class);
+
+    /**
+     * Holds the pool shared by every queue, created the first time it is needed
+     */
+    private static class Shared {
+        private static final Executor executor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), task -> {
+                var thread = new Thread(task, "CommandQueue");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Commands waiting to run
+     */
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether a thread is currently running commands from this queue
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    /**
+     * Called on the writer thread each time the queue has been emptied
+     */
+    private final Runnable afterBatch;
+
+    /**
+     * Where commands are run
+     */
+    private final Executor executor;
+
+    /**
+     * Create a new command queue run on the shared pool
+     * @param afterBatch called each time the queue has been emptied
+     */
+    public CommandQueue(Runnable afterBatch) {
+        this(afterBatch, Shared.executor);
+    }
+
+    /**
+     * Create a new command queue run on the given executor
+     * @param afterBatch called each time the queue has been emptied
+     * @param executor where commands are run
+     */
+    public CommandQueue(Runnable afterBatch, Executor executor) {
+        this.afterBatch = afterBatch;
+        this.executor = executor;
+    }
+
+    /**
+     * Add a command to the queue. Returns straight away.
+     * @param command the command to run
+     */
+    public void submit(Runnable command) {
+        commands.add(command);
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Run every waiting command, then the after batch callback. Keeps going if more commands arrived in the meantime.
+     */
+    private void drain() {
+        do {
+            Runnable command;
+            while ((command = commands.poll()) != null) {
+                try {
+                    command.run();
+                } catch (Exception e) {
+                    logger.error("Command failed", e);
+                }
+            }
+            try {
+                afterBatch.run();
+            } catch (Exception e) {
+                logger.error("After batch failed", e);
+            }
+            draining.set(false);
+        } while (!commands.isEmpty() && draining.compareAndSet(false, true));
+    }
+}
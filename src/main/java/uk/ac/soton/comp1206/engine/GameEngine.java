@@ -0,0 +1,375 @@
+package uk.ac.soton.comp1206.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.ai.Move;
+import uk.ac.soton.comp1206.event.EngineListener;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.LineClear;
+
+/**
+ * The GameEngine holds the rules and state of a TetrECS game in plain Java: placing pieces, clearing lines, scoring,
+ * the multiplier, levels, lives and the clear grid and add life power ups.
+ *
+ * It has no dependency on JavaFX, audio or a timer, so it can be run headless as fast as the CPU allows. The timer
+ * running out is just another move, made by calling timerExpired. Anything that needs to react to the game, such as
+ * the user interface, attaches an EngineListener.
+ */
+public class GameEngine {
+
+    private static final Logger logger = LogManager.getLogger(GameEngine.class);
+
+    /**
+     * The number of lives a game starts with
+     */
+    public static final int STARTING_LIVES = 3;
+
+    /**
+     * Points needed to clear the whole grid
+     */
+    public static final int CLEAR_ALL_COST = 400;
+
+    /**
+     * Points needed to buy an extra life
+     */
+    public static final int ADD_LIFE_COST = 500;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * The grid model the game is played on
+     */
+    private final Grid grid;
+
+    /**
+     * The lines found full after the last piece was played, reused every move
+     */
+    private final LineClear lineClear = new LineClear();
+
+    /**
+     * Generates the sequence of pieces dealt
+     */
+    private final PieceGenerator generator;
+
+    /**
+     * The current piece and the next piece to be played
+     */
+    private GamePiece currentPiece, followingPiece;
+
+    /**
+     * Score, level, lives and multiplier
+     */
+    private int score = 0, level = 0, lives = STARTING_LIVES, multiplier = 1;
+
+    /**
+     * Whether the timer has run out with no lives left
+     */
+    private boolean over = false;
+
+    /**
+     * The listener told about anything happening in the game
+     */
+    private EngineListener listener;
+
+    /**
+     * Create a new game engine with a grid of the specified columns and rows
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public GameEngine(int cols, int rows) {
+        this(cols, rows, PieceGenerator.create(PieceGenerator.RANDOM));
+    }
+
+    /**
+     * Create a new game engine with a grid of the specified columns and rows, dealing pieces from the given generator
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param generator the generator to deal pieces from
+     */
+    public GameEngine(int cols, int rows, PieceGenerator generator) {
+        this.cols = cols;
+        this.rows = rows;
+        this.grid = new Grid(cols, rows);
+        this.generator = generator;
+    }
+
+    /**
+     * Set the listener to be told about anything happening in the game
+     * @param listener listener to set
+     */
+    public void setListener(EngineListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Start the game by dealing the first two pieces
+     */
+    public void start() {
+        logger.debug("Starting game with {}", generator);
+        followingPiece = spawnPiece();
+        nextPiece();
+    }
+
+    /**
+     * Play the current piece with its centre at the given x, y. If it fits, lines are cleared, the score is updated
+     * and the next piece is dealt. Nothing is played once the game is over.
+     * @param x placement X
+     * @param y placement Y
+     * @return true if the piece was played
+     */
+    public boolean playPiece(int x, int y) {
+        if (over) return false;
+        var piece = currentPiece;
+        if (!grid.canPlayPiece(piece, x, y)) {
+            if (listener != null) listener.pieceRejected(piece, x, y);
+            return false;
+        }
+        grid.playPiece(piece, x, y);
+        if (listener != null) listener.piecePlayed(piece, x, y);
+        afterPiece(piece, x, y);
+        nextPiece();
+        return true;
+    }
+
+    /**
+     * Play a move found by a MoveSearch: swap the pieces if asked, rotate the current piece to the orientation of the
+     * move and play it. Nothing changes if the move is not for the current position or the game is over.
+     * @param move the move to play
+     * @return true if the piece was played
+     */
+    public boolean playMove(Move move) {
+        if (over) return false;
+        var piece = move.isSwap() ? followingPiece : currentPiece;
+        if (piece.getPiece() != move.getPiece().getPiece()
+            || !grid.canPlayPiece(move.getPiece(), move.getX(), move.getY())) {
+            return false;
+        }
+        if (move.isSwap()) swapCurrentPiece();
+        var rotations = move.getPiece().getRotation() - currentPiece.getRotation();
+        if (rotations != 0) rotateCurrentPiece(rotations + GamePiece.ROTATIONS);
+        return playPiece(move.getX(), move.getY());
+    }
+
+    /**
+     * Clear any full lines running through a piece just played, then update the score, multiplier and level
+     * @param piece the piece that was just played
+     * @param x placement X
+     * @param y placement Y
+     */
+    public void afterPiece(GamePiece piece, int x, int y) {
+        grid.findLines(piece, x, y, lineClear);
+        var lines = lineClear.getLineCount();
+        if (lines > 0) {
+            score += lines * lineClear.getBlockCount(cols, rows) * 10 * multiplier;
+            multiplier++;
+            if (listener != null) listener.linesCleared(lineClear);
+            grid.clearLines(lineClear);
+        } else {
+            multiplier = 1;
+        }
+        updateLevel();
+    }
+
+    /**
+     * Work out the level from the score, one level per 1000 points
+     */
+    private void updateLevel() {
+        var newLevel = score / 1000;
+        if (newLevel != level) {
+            level = newLevel;
+            if (listener != null) listener.levelChanged(level);
+        }
+    }
+
+    /**
+     * Rotate the current piece clockwise, unless the game is over
+     * @param rotations number of rotations
+     */
+    public void rotateCurrentPiece(int rotations) {
+        if (over) return;
+        currentPiece = currentPiece.rotate(rotations);
+        if (listener != null) listener.pieceRotated(rotations);
+        notifyNextPiece();
+    }
+
+    /**
+     * Swap the current piece with the following piece, unless the game is over
+     */
+    public void swapCurrentPiece() {
+        if (over) return;
+        var piece = currentPiece;
+        currentPiece = followingPiece;
+        followingPiece = piece;
+        if (listener != null) listener.piecesSwapped();
+        notifyNextPiece();
+    }
+
+    /**
+     * Spend points to clear the whole grid, which also increases the multiplier
+     * @return true if there were enough points and the game is not over
+     */
+    public boolean clearAll() {
+        if (over || score < CLEAR_ALL_COST) return false;
+        score -= CLEAR_ALL_COST;
+        grid.clear();
+        multiplier++;
+        if (listener != null) listener.gridCleared();
+        return true;
+    }
+
+    /**
+     * Spend points to gain an extra life
+     * @return true if there were enough points and the game is not over
+     */
+    public boolean addLife() {
+        if (over || score < ADD_LIFE_COST) return false;
+        score -= ADD_LIFE_COST;
+        lives++;
+        if (listener != null) listener.lifeGained(lives);
+        return true;
+    }
+
+    /**
+     * Handle the timer running out: a life is lost, or the game ends if there are none left. The current piece is
+     * discarded and the multiplier reset either way. Does nothing once the game is over.
+     */
+    public void timerExpired() {
+        if (over) return;
+        if (listener != null) listener.timerExpired();
+        if (lives > 0) {
+            lives--;
+            if (listener != null) listener.lifeLost(lives);
+        } else {
+            over = true;
+            logger.debug("Game over");
+            if (listener != null) listener.gameOver();
+        }
+        nextPiece();
+        multiplier = 1;
+    }
+
+    /**
+     * Replace the current piece with the next piece, while generating a new piece for the followingPiece
+     */
+    private void nextPiece() {
+        currentPiece = followingPiece;
+        followingPiece = spawnPiece();
+        notifyNextPiece();
+    }
+
+    /**
+     * Tell the listener about the current and following pieces
+     */
+    private void notifyNextPiece() {
+        if (listener != null) listener.nextPiece(currentPiece, followingPiece);
+    }
+
+    /**
+     * Spawns the next piece from the generator
+     * @return a GamePiece
+     */
+    public GamePiece spawnPiece() {
+        return generator.nextPiece();
+    }
+
+    /**
+     * Calculates the timer delay
+     * @return the timer length in milliseconds for the current level
+     */
+    public int getTimerDelay() {
+        return Math.max(2500, 12000 - 500 * level);
+    }
+
+    /**
+     * @return the generator dealing the pieces
+     */
+    public PieceGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * @return the seed the pieces are generated from
+     */
+    public long getSeed() {
+        return generator.getSeed();
+    }
+
+    /**
+     * @return the grid the game is played on
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the piece to be played
+     */
+    public GamePiece getCurrentPiece() {
+        return currentPiece;
+    }
+
+    /**
+     * @return the piece after the current piece
+     */
+    public GamePiece getFollowingPiece() {
+        return followingPiece;
+    }
+
+    /**
+     * @return the current score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return the current level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return lives remaining
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * @return the current multiplier
+     */
+    public int getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * @return true if the timer has run out with no lives left
+     */
+    public boolean isOver() {
+        return over;
+    }
+}
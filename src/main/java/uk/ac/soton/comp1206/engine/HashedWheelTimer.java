@@ -0,0 +1,261 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A timer which can run a very large number of delayed tasks from a single thread, such as the game loops of many games
+ * running at once.
+ *
+ * Time is split into ticks, and tasks are hashed into a wheel of buckets by the tick they are due on. Each tick the
+ * worker thread only looks at one bucket, so scheduling and cancelling are constant time no matter how many tasks are
+ * waiting. Tasks run on the worker thread and should be short, handing any real work off elsewhere.
+ *
+ * Timing is only accurate to the length of a tick, which is plenty for a game loop measured in seconds.
+ */
+public class HashedWheelTimer {
+
+    private static final Logger logger = LogManager.getLogger(HashedWheelTimer.class);
+
+    /**
+     * Holds the timer shared by every game, created the first time it is asked for
+     */
+    private static class Shared {
+        private static final HashedWheelTimer timer = new HashedWheelTimer(10, 512);
+    }
+
+    /**
+     * Length of a tick in nanoseconds
+     */
+    private final long tickNanos;
+
+    /**
+     * The wheel of buckets, each holding a linked list of timeouts. Only touched by the worker thread.
+     */
+    private final Timeout[] wheel;
+
+    /**
+     * Mask to turn a tick number into a bucket index
+     */
+    private final int mask;
+
+    /**
+     * Timeouts scheduled since the last tick, waiting to be placed in the wheel
+     */
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Timeouts cancelled since the last tick, waiting to be taken out of the wheel
+     */
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The time the timer started, which ticks are counted from
+     */
+    private final long startTime;
+
+    /**
+     * The number of ticks processed so far
+     */
+    private long tick = 0;
+
+    /**
+     * Get the timer shared by every game
+     * @return the shared timer
+     */
+    public static HashedWheelTimer getShared() {
+        return Shared.timer;
+    }
+
+    /**
+     * Create a new timer and start its worker thread
+     * @param tickMillis length of a tick in milliseconds
+     * @param buckets number of buckets in the wheel, rounded up to a power of two
+     */
+    public HashedWheelTimer(long tickMillis, int buckets) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        var size = Integer.highestOneBit(Math.max(1, buckets - 1)) << 1;
+        this.wheel = new Timeout[size];
+        this.mask = size - 1;
+        this.startTime = System.nanoTime();
+
+        var worker = new Thread(this::run, "HashedWheelTimer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedule a task to run once after the given delay
+     * @param task the task to run
+     * @param delay delay in milliseconds
+     * @return a timeout which can be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay) {
+        var timeout = new Timeout(task, System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(delay));
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * The worker loop: wait for each tick, then expire the tasks in its bucket
+     */
+    private void run() {
+        while (true) {
+            var deadline = (tick + 1) * tickNanos;
+            var sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+
+            removeCancelled();
+            transferAdded();
+            expire(wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Place newly scheduled timeouts into the bucket of the tick they are due on
+     */
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state == Timeout.CANCELLED) continue;
+
+            var due = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.rounds = (due - tick) / wheel.length;
+            timeout.bucket = (int) (due & mask);
+            timeout.next = wheel[timeout.bucket];
+            if (timeout.next != null) timeout.next.prev = timeout;
+            wheel[timeout.bucket] = timeout;
+        }
+    }
+
+    /**
+     * Take cancelled timeouts out of their buckets
+     */
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket >= 0) unlink(timeout);
+        }
+    }
+
+    /**
+     * Run every timeout in a bucket which is due by the given deadline
+     * @param timeout the first timeout in the bucket
+     * @param deadline the end of the current tick
+     */
+    private void expire(Timeout timeout, long deadline) {
+        while (timeout != null) {
+            var next = timeout.next;
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else if (timeout.deadline <= deadline) {
+                unlink(timeout);
+                if (timeout.expire()) {
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable e) {
+                        logger.error("Timer task failed", e);
+                    }
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Remove a timeout from its bucket
+     * @param timeout the timeout to remove
+     */
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+
+    /**
+     * A task scheduled on the timer, which can be cancelled until it runs
+     */
+    public class Timeout {
+
+        private static final int WAITING = 0, CANCELLED = 1, EXPIRED = 2;
+
+        /**
+         * The task to run
+         */
+        private final Runnable task;
+
+        /**
+         * When the task is due, in nanoseconds since the timer started
+         */
+        private final long deadline;
+
+        /**
+         * Whether the task is waiting, cancelled or has run
+         */
+        private volatile int state = WAITING;
+
+        /**
+         * Full turns of the wheel left before the task is due, the bucket it is in and its neighbours there. Only
+         * touched by the worker thread.
+         */
+        private long rounds;
+        private int bucket = -1;
+        private Timeout prev, next;
+
+        /**
+         * Create a new timeout
+         * @param task the task to run
+         * @param deadline when the task is due
+         */
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the task if it has not run yet
+         * @return true if the task was cancelled, false if it had already run or been cancelled
+         */
+        public boolean cancel() {
+            synchronized (this) {
+                if (state != WAITING) return false;
+                state = CANCELLED;
+            }
+            cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Mark the task as run, unless it has been cancelled
+         * @return true if the task should run
+         */
+        private synchronized boolean expire() {
+            if (state != WAITING) return false;
+            state = EXPIRED;
+            return true;
+        }
+
+        /**
+         * @return true if the task was cancelled before it ran
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+    }
+}
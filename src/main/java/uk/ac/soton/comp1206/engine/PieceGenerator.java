@@ -0,0 +1,237 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * Generates the sequence of pieces dealt in a game. The same generator type and seed always deals the same pieces, so
+ * any game can be played again exactly.
+ *
+ * Pieces are generated a block at a time ahead of when they are needed, so dealing a piece is just reading the next
+ * entry of an array.
+ */
+public abstract class PieceGenerator {
+
+    /**
+     * Number of pieces generated ahead at a time
+     */
+    private static final int BLOCK_SIZE = 256;
+
+    /**
+     * Generator types, as stored alongside a seed
+     */
+    public static final int RANDOM = 0;
+    public static final int BAG = 1;
+    public static final int SEQUENCE = 2;
+
+    /**
+     * The seed the generator was created with
+     */
+    private final long seed;
+
+    /**
+     * The pieces generated ahead
+     */
+    private final byte[] block;
+
+    /**
+     * Position of the next piece in the block, and the number of pieces in it
+     */
+    private int position, size;
+
+    /**
+     * Create a new generator
+     * @param seed the seed the sequence is generated from
+     * @param blockSize number of pieces to generate ahead at a time
+     */
+    protected PieceGenerator(long seed, int blockSize) {
+        this.seed = seed;
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * Create a generator picking every piece uniformly at random
+     * @param seed the seed
+     * @return the generator
+     */
+    public static PieceGenerator random(long seed) {
+        return new RandomGenerator(seed);
+    }
+
+    /**
+     * Create a generator dealing every piece once, in a random order, before any piece is dealt again
+     * @param seed the seed
+     * @return the generator
+     */
+    public static PieceGenerator bag(long seed) {
+        return new BagGenerator(seed);
+    }
+
+    /**
+     * Create a generator dealing a fixed sequence of pieces, repeating it when it runs out
+     * @param pieces the piece numbers to deal
+     * @return the generator
+     */
+    public static PieceGenerator sequence(byte... pieces) {
+        return new SequenceGenerator(pieces);
+    }
+
+    /**
+     * Create a generator of the given type with a new random seed
+     * @param type RANDOM or BAG
+     * @return the generator
+     */
+    public static PieceGenerator create(int type) {
+        return create(type, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Create a generator of the given type and seed, such as one recorded from an earlier game
+     * @param type RANDOM or BAG
+     * @param seed the seed
+     * @return the generator
+     */
+    public static PieceGenerator create(int type, long seed) {
+        switch (type) {
+            case RANDOM:
+                return random(seed);
+            case BAG:
+                return bag(seed);
+            default:
+                throw new IllegalArgumentException("Cannot create a piece generator of type " + type + " from a seed");
+        }
+    }
+
+    /**
+     * Deal the next piece number
+     * @return the piece number
+     */
+    public final int next() {
+        if (position == size) {
+            size = fill(block);
+            position = 0;
+        }
+        return block[position++];
+    }
+
+    /**
+     * Deal the next piece
+     * @return a GamePiece
+     */
+    public final GamePiece nextPiece() {
+        return GamePiece.createPiece(next());
+    }
+
+    /**
+     * Generate the next block of pieces
+     * @param block array to fill with piece numbers
+     * @return number of pieces generated, at least one
+     */
+    protected abstract int fill(byte[] block);
+
+    /**
+     * @return the generator type, RANDOM, BAG or SEQUENCE
+     */
+    public abstract int getType();
+
+    /**
+     * @return the seed the generator was created with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Return a string representation of this generator
+     * @return string representation
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [seed " + seed + "]";
+    }
+
+    /**
+     * Picks every piece uniformly at random
+     */
+    private static class RandomGenerator extends PieceGenerator {
+        private final SplittableRandom random;
+
+        RandomGenerator(long seed) {
+            super(seed, BLOCK_SIZE);
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        protected int fill(byte[] block) {
+            for (var i = 0; i < block.length; i++) {
+                block[i] = (byte) random.nextInt(GamePiece.PIECES);
+            }
+            return block.length;
+        }
+
+        @Override
+        public int getType() {
+            return RANDOM;
+        }
+    }
+
+    /**
+     * Deals a shuffled bag of every piece, then another
+     */
+    private static class BagGenerator extends PieceGenerator {
+        private final SplittableRandom random;
+
+        BagGenerator(long seed) {
+            super(seed, BLOCK_SIZE / GamePiece.PIECES * GamePiece.PIECES);
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        protected int fill(byte[] block) {
+            for (var bag = 0; bag < block.length; bag += GamePiece.PIECES) {
+                //Fisher-Yates shuffle of one bag
+                for (var i = 0; i < GamePiece.PIECES; i++) {
+                    var j = random.nextInt(i + 1);
+                    block[bag + i] = block[bag + j];
+                    block[bag + j] = (byte) i;
+                }
+            }
+            return block.length;
+        }
+
+        @Override
+        public int getType() {
+            return BAG;
+        }
+    }
+
+    /**
+     * Deals a fixed sequence over and over
+     */
+    private static class SequenceGenerator extends PieceGenerator {
+        private final byte[] pieces;
+
+        SequenceGenerator(byte[] pieces) {
+            super(0, pieces.length);
+            if (pieces.length == 0) throw new IllegalArgumentException("A piece sequence cannot be empty");
+            for (var piece : pieces) {
+                if (piece < 0 || piece >= GamePiece.PIECES) {
+                    throw new IllegalArgumentException("No such piece " + piece);
+                }
+            }
+            this.pieces = pieces.clone();
+        }
+
+        @Override
+        protected int fill(byte[] block) {
+            System.arraycopy(pieces, 0, block, 0, pieces.length);
+            return pieces.length;
+        }
+
+        @Override
+        public int getType() {
+            return SEQUENCE;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package uk.ac.soton.comp1206.event;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.LineClear;
+
+/**
+ * Listens for things happening inside a GameEngine. Every method does nothing by default, so listeners only need to
+ * implement the events they care about.
+ */
+public interface EngineListener {
+
+  /**
+   * Called when a piece has been played into the grid
+   * @param piece the piece played
+   * @param x placement X
+   * @param y placement Y
+   */
+  default void piecePlayed(GamePiece piece, int x, int y) {}
+
+  /**
+   * Called when a piece could not be played where asked
+   * @param piece the piece
+   * @param x placement X
+   * @param y placement Y
+   */
+  default void pieceRejected(GamePiece piece, int x, int y) {}
+
+  /**
+   * Called when full lines are found, before they are cleared from the grid
+   * @param lines the full rows and columns
+   */
+  default void linesCleared(LineClear lines) {}
+
+  /**
+   * Called when the current or following piece changes
+   * @param currentPiece the piece to be played
+   * @param followingPiece the piece after it
+   */
+  default void nextPiece(GamePiece currentPiece, GamePiece followingPiece) {}
+
+  /**
+   * Called when the current piece is rotated
+   * @param rotations number of clockwise rotations
+   */
+  default void pieceRotated(int rotations) {}
+
+  /**
+   * Called when the current and following pieces are swapped
+   */
+  default void piecesSwapped() {}
+
+  /**
+   * Called when points are spent to clear the whole grid
+   */
+  default void gridCleared() {}
+
+  /**
+   * Called when points are spent on an extra life
+   * @param lives lives now remaining
+   */
+  default void lifeGained(int lives) {}
+
+  /**
+   * Called when the timer runs out, before a life is lost or the game ends
+   */
+  default void timerExpired() {}
+
+  /**
+   * Called when the level changes
+   * @param level the new level
+   */
+  default void levelChanged(int level) {}
+
+  /**
+   * Called when a life is lost because the timer ran out
+   * @param lives lives remaining
+   */
+  default void lifeLost(int lives) {}
+
+  /**
+   * Called when the timer runs out with no lives left
+   */
+  default void gameOver() {}
+}
@@ -0,0 +1,15 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * Listens for any block in a Grid changing value
+ */
+public interface GridListener {
+
+  /**
+   * Called whenever a block in the grid is set to a new value
+   * @param x column of the block
+   * @param y row of the block
+   * @param value the new value
+   */
+  void gridChanged(int x, int y, int value);
+}
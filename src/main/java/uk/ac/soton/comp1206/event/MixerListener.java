@@ -0,0 +1,16 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * Listens for the state of the AudioMixer, for metrics
+ */
+public interface MixerListener {
+
+  /**
+   * Called whenever a sound is played, stolen or dropped
+   * @param activeVoices number of voices playing
+   * @param played total sounds played
+   * @param stolen total sounds cut short to make room for a more important one
+   * @param dropped total sounds not played because every voice was busy with something more important
+   */
+  void mixerUpdated(int activeVoices, long played, long stolen, long dropped);
+}
@@ -1,18 +1,25 @@
 package uk.ac.soton.comp1206.game;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.util.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.ai.Move;
+import uk.ac.soton.comp1206.ai.MoveSearch;
+import uk.ac.soton.comp1206.engine.CommandQueue;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.HashedWheelTimer;
+import uk.ac.soton.comp1206.engine.HashedWheelTimer.Timeout;
+import uk.ac.soton.comp1206.engine.PieceGenerator;
+import uk.ac.soton.comp1206.event.EngineListener;
+import uk.ac.soton.comp1206.replay.ReplayRecorder;
 import uk.ac.soton.comp1206.ui.Multimedia;
 import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBlockCoordinate;
@@ -22,16 +29,22 @@ import uk.ac.soton.comp1206.event.LineClearedListener;
 import uk.ac.soton.comp1206.event.NextPieceListener;
 
 /**
- * The Game class handles the main logic, state and properties of the TetrECS game. Methods to manipulate the game state
- * and to handle actions made by the player should take place inside this class.
+ * The Game class links the TetrECS game to the user interface. The rules and state of the game live in a GameEngine;
+ * this class runs the game timer, plays sounds and exposes the state as properties for the scenes to bind to.
+ * Actions made by the player should go through this class.
+ *
+ * Every action, including the timer running out, is submitted as a command to a single queue, so the engine is only
+ * ever changed by one thread at a time. After each batch of commands a snapshot of the game is published, and the
+ * latest snapshot is shown on the JavaFX thread once per pulse, however many batches ran in between.
  */
-public class Game {
+public class Game implements EngineListener {
+
+    private static final Logger logger = LogManager.getLogger(Game.class);
 
     /**
-     * Random object used to generate the next random piece
+     * The engine holding the rules and state of the game. Only touched by commands.
      */
-    private final Random random = new Random();
-    private static final Logger logger = LogManager.getLogger(Game.class);
+    protected final GameEngine engine;
 
     /**
      * Number of rows
@@ -44,16 +57,24 @@ public class Game {
     protected final int cols;
 
     /**
-     * The grid model linked to the game
+     * The grid model shown to the player, kept in step with the engine on the JavaFX thread
      */
     protected final Grid grid;
 
     /**
-     * The current piece and the next piece to be played
+     * The queue every change to the game goes through
      */
-    private GamePiece currentPiece, followingPiece;
+    private final CommandQueue commands = new CommandQueue(this::publish);
 
-    private ScheduledExecutorService timer = null;
+    /**
+     * The timer running the game loop, shared with every other game
+     */
+    private final HashedWheelTimer timer = HashedWheelTimer.getShared();
+
+    /**
+     * Whether the game loop should keep going
+     */
+    private volatile boolean running = false;
 
     /**
      * Score variable
@@ -84,11 +105,55 @@ public class Game {
     /**
      * Game loop
      */
-    private ScheduledFuture loop;
+    private Timeout loop;
+
+    /**
+     * Counts each time the game loop is rescheduled, so a timer which fired just before a reset can be ignored
+     */
+    private int loopGeneration = 0;
+
     /**
-     * To track whether a level up has occured
+     * Records the game to a replay file, if asked to. Only touched by commands once the game has started.
      */
-    private int oldLevel;
+    private ReplayRecorder recorder;
+
+    /**
+     * Events and cleared lines collected while running the current batch of commands
+     */
+    private int events;
+    private long clearedRows, clearedCols;
+
+    /**
+     * The snapshot being published to and the snapshot being shown, swapped under the lock
+     */
+    private GameSnapshot published, shown;
+    private final Object snapshotLock = new Object();
+
+    /**
+     * Whether the published snapshot is newer than the shown one and waiting to be shown. Only changed under the lock.
+     */
+    private final AtomicBoolean showPending = new AtomicBoolean(false);
+
+    /**
+     * @return the generator dealing the pieces, whose type and seed reproduce this game's pieces
+     */
+    public PieceGenerator getGenerator() {
+        return engine.getGenerator();
+    }
+
+    /**
+     * @return the seed the pieces are generated from
+     */
+    public long getSeed() {
+        return engine.getSeed();
+    }
+
+    /**
+     * @return the file this game is being recorded to, or null if it is not being recorded or recording failed
+     */
+    public Path getReplayFile() {
+        return recorder == null || recorder.hasFailed() ? null : recorder.getFile();
+    }
 
     public int getScore() {
         return score.get();
@@ -103,10 +168,6 @@ public class Game {
      */
     public ArrayList<Pair<String, Integer>> scores = new ArrayList<>();
 
-    public void setScore(int score) {
-        this.score.set(score);
-    }
-
     /**
      * Gets the current level
      * @return the current level is returned
@@ -119,18 +180,10 @@ public class Game {
         return level;
     }
 
-    public void setLevel(int level) {
-        this.level.set(level);
-    }
-
     public IntegerProperty livesProperty() {
         return lives;
     }
 
-    public void setLives(int lives) {
-        this.lives.set(lives);
-    }
-
     public IntegerProperty multiplierProperty() {
         return multiplier;
     }
@@ -144,37 +197,18 @@ public class Game {
     }
 
     /**
-     * @return returns the current piece
+     * @return returns the current piece, as last shown
      */
     public GamePiece getCurrentPiece() {
-        return currentPiece;
+        return shown.currentPiece;
     }
 
     /**
      * Returns the gamePiece object, followingPiece
-     * @return returns the following piece
+     * @return returns the following piece, as last shown
      */
     public GamePiece getFollowingPiece() {
-        return followingPiece;
-    }
-
-    /**
-     * Calls the nextPiece command specified by the interface
-     * @param nextPiece the next piece to be played
-     */
-    private void notifyNextPieceListener(GamePiece nextPiece, GamePiece followingPiece) {
-        if (nextPieceListener != null) {
-            nextPieceListener.nextPiece(nextPiece, followingPiece);
-        }
-    }
-
-    /**
-     * Listens for the end of the timer
-     */
-    private void gameLoopListener() {
-        if (gameLoopListener != null) {
-            gameLoopListener.setOnGameLoop(getTimerDelay());
-        }
+        return shown.followingPiece;
     }
 
     /**
@@ -194,49 +228,67 @@ public class Game {
     }
 
     /**
-     * Sets the multiplier to a specific value
-     * @param multiplier sets the multiplier to the value passed into this parameter
+     * Create a new game with the specified rows and columns. Creates a corresponding grid model.
+     * @param cols number of columns
+     * @param rows number of rows
      */
-    public void setMultiplier(int multiplier) {
-        this.multiplier.set(multiplier);
+    public Game(int cols, int rows) {
+        this(cols, rows, PieceGenerator.create(PieceGenerator.RANDOM));
     }
 
     /**
-     * Create a new game with the specified rows and columns. Creates a corresponding grid model.
+     * Create a new game with the specified rows and columns, dealing pieces from the given generator
      * @param cols number of columns
      * @param rows number of rows
+     * @param generator the generator to deal pieces from, which decides the sequence of pieces
      */
-    public Game(int cols, int rows) {
+    public Game(int cols, int rows, PieceGenerator generator) {
         this.cols = cols;
         this.rows = rows;
 
-        //Create a new grid model to represent the game state
-        this.grid = new Grid(cols,rows);
+        //Create a new engine, and a grid model to show its state
+        this.engine = new GameEngine(cols, rows, generator);
+        this.grid = new Grid(cols, rows);
+        engine.setListener(this);
+
+        published = new GameSnapshot(cols * rows);
+        shown = new GameSnapshot(cols * rows);
 
         score = new SimpleIntegerProperty(0);
         level = new SimpleIntegerProperty(0);
-        lives = new SimpleIntegerProperty(3);
+        lives = new SimpleIntegerProperty(GameEngine.STARTING_LIVES);
         multiplier = new SimpleIntegerProperty(1);
+    }
 
-        timer = Executors.newSingleThreadScheduledExecutor();
+    /**
+     * Record everything played in this game to a replay file. Must be called before the game starts.
+     * @param file the file to record to
+     */
+    public void recordTo(Path file) {
+        recorder = new ReplayRecorder(file, engine.getGenerator(), cols, rows);
     }
 
     /**
-     * Start the game
+     * Start the game. The first pieces are dealt and shown before this returns, so they can be read straight away.
      */
     public void start() {
-        logger.info("Starting game");
+        logger.info("Starting game with {}", engine.getGenerator());
+        audioPlayer = Multimedia.getInstance();
+        running = true;
+        //No command has run yet, so nothing else is touching the engine
         initialiseGame();
-        loop = timer.schedule(this::gameLoop, getTimerDelay(), TimeUnit.MILLISECONDS);
-        gameLoopListener();
+        synchronized (snapshotLock) {
+            shown.capture(engine);
+        }
+        commands.submit(this::resetLoop);
     }
 
     /**
-     * Ends the game safely by shutting down the timer
+     * Ends the game safely by stopping the timer
      */
     public void stop() {
         logger.info("Ending game");
-        this.timer.shutdownNow();
+        stopTimer();
     }
 
     /**
@@ -244,211 +296,136 @@ public class Game {
      */
     public void initialiseGame() {
         logger.info("Initialising game");
-        this.followingPiece = spawnPiece();
-        nextPiece();
-        audioPlayer = new Multimedia();
+        engine.start();
     }
 
-
     /**
      * Handle what should happen when a particular block is clicked
      * @param gameBlock the block that was clicked
      */
     public void blockClicked(GameBlock gameBlock) {
-        //Get the position of this block
-        int x = gameBlock.getX();
-        int y = gameBlock.getY();
-
-        // Plays the piece in the x, y clicked by the user
-        if (grid.canPlayPiece(currentPiece, x,y)) {
-            // Can play the piece
-            grid.playPiece(currentPiece, x, y);
-            audioPlayer.playAudioFile("place.wav");
-            afterPiece();
-            nextPiece();
-            loop.cancel(false);
-            loop = timer.schedule(this::gameLoop, getTimerDelay(), TimeUnit.MILLISECONDS);
-            gameLoopListener();
-            logger.info("Timer reset!");
-        } else {
-            // Cannot play the piece
-            audioPlayer.playAudioFile("fail.wav");
-        }
+        blockClicked(gameBlock.getX(), gameBlock.getY());
     }
 
     /**
-     * Handles the checks of if lines need to be cleared and calls any necessary methods
-     * to continue the game such as scoring
+     * Handle what should happen when the block at a particular column and row is clicked
+     * @param x column of the block clicked
+     * @param y row of the block clicked
      */
-    public void afterPiece() {
-        // Check if we need to clear any lines
-        var columnToClear = 0;
-        var rowToClear = 0;
-        var linesCleared = 0;
-        // Using a HashSet to eliminate chance of any duplicates
-        HashSet<GameBlockCoordinate> blocksToClear = new HashSet<>();
-        for (var x = 0; x < cols; x++) {
-            var counter = 0;
-            for (var y = 0; y < rows; y++) {
-                // Vertical line check
-                if (grid.get(x,y) == 0) break;
-                counter++; // Increments each time a non-zero value is found in a row
-                columnToClear = x; // Logs the column the loop is currently on
-            }
-            if (counter == rows) {
-                logger.info("Column {} to be cleared", columnToClear);
-                linesCleared++;
-                for (var i = 0; i < 5;i++) {
-                    GameBlockCoordinate tempBlock = new GameBlockCoordinate(columnToClear,i);
-                    blocksToClear.add(tempBlock);
-                }
-                logger.info(blocksToClear.toString());
-            }
-        }
-        for (var y = 0; y < cols; y++) {
-            var counter = 0;
-            for (var x = 0; x < rows; x++) {
-                // Horizontal line check
-                if (grid.get(x,y) == 0) break;
-                counter++; // Increments each time a non-zero value is found in a row
-                rowToClear = y; // Logs the row the loop is currently on
-            }
-            if (counter == cols) {
-                logger.info("Row {} to be cleared", rowToClear);
-                linesCleared++;
-                for (var i = 0; i < 5;i++) {
-                    GameBlockCoordinate tempBlock = new GameBlockCoordinate(i,rowToClear);
-                    blocksToClear.add(tempBlock);
-                }
-                logger.info(blocksToClear.toString());
+    public void blockClicked(int x, int y) {
+        // Plays the piece in the x, y clicked by the user
+        commands.submit(() -> {
+            if (engine.playPiece(x, y)) {
+                resetLoop();
+                logger.info("Timer reset!");
             }
-        }
-        score(linesCleared, blocksToClear.size());
-        checkMultiplier(linesCleared, blocksToClear);
-        clearBlocks(blocksToClear);
-        changeLevel();
-        levelSounds(level.get());
+        });
     }
 
     /**
-     * Checks divisibility by 1000, adjusts level depending on which 1000 is reached
+     * Play a move, such as one found by a MoveSearch, as if the player had made it
+     * @param move the move to play
      */
-    public void changeLevel() {
-        int value = score.get() / 1000;
-        level.set(value);
+    public void playMove(Move move) {
+        commands.submit(() -> {
+            if (engine.playMove(move)) {
+                resetLoop();
+            }
+        });
     }
 
     /**
-     * Stops the timer
+     * Find the best move for the current position and pass it to the callback on the JavaFX thread, for example to
+     * show the player a hint. The search starts on the command thread, so it sees a consistent game.
+     * @param search the search to run
+     * @param callback called with the best move, or null if nothing fits
      */
-    public void stopTimer() {
-        this.timer.shutdownNow();
+    public void findBestMove(MoveSearch search, Consumer<Move> callback) {
+        commands.submit(() -> {
+            var move = search.search(engine, true);
+            Platform.runLater(() -> callback.accept(move));
+        });
     }
 
     /**
-     * Plays an audio file indicating a level up
-     * @param currentLevel takes in the current level the user is on
+     * Cancel any pending game loop and schedule a new one for the current level. Only called from commands.
      */
-    public void levelSounds(int currentLevel) {
-        if (currentLevel != oldLevel) {
-            logger.info("Leveled up");
-            audioPlayer.playAudioFile("level.wav");
-            oldLevel = currentLevel;
+    private void resetLoop() {
+        if (!running) return;
+        if (loop != null) {
+            loop.cancel();
         }
+        var generation = ++loopGeneration;
+        loop = timer.schedule(() -> commands.submit(() -> gameLoop(generation)), engine.getTimerDelay());
+        events |= GameSnapshot.TIMER_RESET;
     }
 
-
     /**
-     * Increments multiplier by 1 if > 0, resets if no lines cleared
-     * @param linesCleared the number of lines cleared in the turn
-     * @param blocksToClear the number of blocks to clear
+     * Stops the timer
      */
-    public void checkMultiplier(int linesCleared, HashSet<GameBlockCoordinate> blocksToClear) {
-        if (linesCleared > 0) {
-            increaseMultiplier();
-            if (lineClearedListener != null) {
-                lineClearedListener.setOnLineCleared(blocksToClear);
+    public void stopTimer() {
+        running = false;
+        commands.submit(() -> {
+            if (loop != null) {
+                loop.cancel();
             }
-        } else {
-            resetMultiplier();
-        }
+            endRecording();
+        });
     }
 
     /**
-     * Clear the whole grid with 500 points
+     * Clear the whole grid with 400 points
      */
     public void clearAll() {
-        if (score.get() >= 400) {
-            score.set(score.get() - 400);
-            grid.clear();
-            multiplier.set(multiplier.add(1).get());
-            audioPlayer.playAudioFile("explode.wav");
-            logger.info("Grid cleaned");
-        } else {
-            audioPlayer.playAudioFile("fail.wav");
-            logger.info("Not enough points");
-        }
-    }
-
-    public void addLife() {
-        if (score.get() >= 500) {
-            score.set(score.get() - 500);
-            lives.set(lives.get() + 1);
-            audioPlayer.playAudioFile("lifegain.wav");
-            logger.info("1 Life added");
-        } else {
-            audioPlayer.playAudioFile("fail.wav");
-            logger.info("Not enough points");
-        }
+        commands.submit(() -> {
+            if (engine.clearAll()) {
+                events |= GameSnapshot.GRID_CLEARED;
+                logger.info("Grid cleaned");
+            } else {
+                events |= GameSnapshot.NOT_ENOUGH_POINTS;
+                logger.info("Not enough points");
+            }
+        });
     }
 
     /**
-     * Increments the value of the multiplier
+     * Buy an extra life with 500 points
      */
-    public void increaseMultiplier() {
-        multiplier.set(multiplier.add(1).get());
+    public void addLife() {
+        commands.submit(() -> {
+            if (engine.addLife()) {
+                events |= GameSnapshot.LIFE_GAINED;
+                logger.info("1 Life added");
+            } else {
+                events |= GameSnapshot.NOT_ENOUGH_POINTS;
+                logger.info("Not enough points");
+            }
+        });
     }
 
     /**
-     * Resets multiplier to 1
-     */
-    public void resetMultiplier() {
-        multiplier.set(1);
-    }
-    /**
-     * Get the blocks that need to be cleared and set their values to zero
-     * @param blocksToClear a set of GameBlockCoordinate objects that need to be cleared
+     * Rotates the current piece 90 degrees clockwise
+     * @param num number of rotations
      */
-    public void clearBlocks(HashSet<GameBlockCoordinate> blocksToClear) {
-        for (GameBlockCoordinate i : blocksToClear) {
-            int clearX = i.getX();
-            int clearY = i.getY();
-            grid.set(clearX,clearY,0);
-        }
-        logger.info("All necessary blocks cleared");
+    public void rotateCurrentPiece(int num) {
+        commands.submit(() -> {
+            engine.rotateCurrentPiece(num);
+            logger.info("{} has been rotated", engine.getCurrentPiece());
+        });
     }
 
     /**
-     * Adds the calculated score based on the lines and blocks cleared
-     * @param numOfLines number of lines cleared
-     * @param numOfBlocks number of blocks cleared
+     * Swaps the current piece with the next piece
      */
-    public void score(int numOfLines, int numOfBlocks) {
-        var addScore = numOfLines * numOfBlocks * 10 * multiplier.get();
-        logger.info("Adding {} points!", addScore);
-        score.set(score.add(addScore).get());
+    public void swapCurrentPiece() {
+        commands.submit(() -> {
+            engine.swapCurrentPiece();
+            logger.info("{} and {} have been swapped", engine.getCurrentPiece(), engine.getFollowingPiece());
+        });
     }
 
     /**
-     * Rotates the current piece 90 degrees clockwise
-     * @param num number of rotations
-     */
-    public void rotateCurrentPiece(int num) {
-        currentPiece.rotate(num);
-        logger.info("{} has been rotated", currentPiece.toString());
-    }
-    /**
-     * Get the grid model inside this game representing the game state of the board
+     * Get the grid model representing the game state of the board, as last shown
      * @return game grid model
      */
     public Grid getGrid() {
@@ -472,95 +449,244 @@ public class Game {
     }
 
     /**
-     * Replace the current piece with the next piece, while generating a new piece
-     * for the followingPiece
+     * Calculates the timerDelay
+     * @return the timer length dependent on which level you are currently on, as last shown
      */
-    public void nextPiece() {
-        currentPiece = followingPiece;
-        followingPiece = spawnPiece();
-        logger.info("The next piece is: {}", currentPiece);
-        notifyNextPieceListener(currentPiece, followingPiece);
+    public int getTimerDelay() {
+        return shown.timerDelay;
     }
 
     /**
-     * Spawns a piece randomly
-     * @return a GamePiece object, after creating a piece
+     * Loop through certain events when the timer ends. Only called from commands.
+     * @param generation the loop this timer was scheduled for
      */
-    public GamePiece spawnPiece() {
-        var maxPieces = GamePiece.PIECES;
-        var randomPiece = random.nextInt(maxPieces);
-        logger.info("Picking random piece: {}", randomPiece);
-        var piece = GamePiece.createPiece(randomPiece);
-        return piece;
+    private void gameLoop(int generation) {
+        if (!running || generation != loopGeneration) return;
+        engine.timerExpired();
+        resetLoop();
     }
 
     /**
-     * Swaps the current piece with the next piece
+     * Finish the replay, if recording, with the final state of the game. Only called from commands.
      */
-    public void swapCurrentPiece() {
-        GamePiece tempPiece = currentPiece; // Store current piece in a temporary variable
-        currentPiece = followingPiece; // Set current piece to the following piece
-        followingPiece = tempPiece; // Set following piece to the temporary variable
-        logger.info("{} and {} have been swapped", currentPiece, followingPiece);
+    private void endRecording() {
+        if (recorder != null) {
+            recorder.end(engine.getScore(), engine.getLevel(), engine.getLives());
+        }
     }
 
     /**
-     * Calculates the timerDelay
-     * @return the timer length dependent on which level you are currently on
+     * Sets the listener
+     * @param listener listener from another class
      */
-    public int getTimerDelay() {
-        int delay;
-        delay = 12000 - (500 * this.getLevel());
-        if (delay <= 2500) {
-            delay = 2500;
+    public void setOnGameOver(GameOverListener listener) {
+        gameOverListener = listener;
+    }
+
+    /**
+     * Publish the state of the engine and the events of the batch just run, then make sure it will be shown. Called on
+     * the command thread after each batch.
+     */
+    private void publish() {
+        boolean schedule;
+        synchronized (snapshotLock) {
+            published.capture(engine);
+            published.events |= events;
+            published.clearedRows |= clearedRows;
+            published.clearedCols |= clearedCols;
+            //Set with the capture, so a show which has already swapped cannot clear it and miss this snapshot
+            schedule = showPending.compareAndSet(false, true);
+        }
+        events = 0;
+        clearedRows = 0;
+        clearedCols = 0;
+        if (recorder != null) recorder.flush();
+
+        if (schedule) {
+            Platform.runLater(this::show);
         }
-        return delay;
     }
 
     /**
-     * Removes a life from the user
+     * Show the latest published snapshot: update the properties and grid, tell the listeners and play any sounds.
+     * Called on the JavaFX thread.
      */
-    public void removeLife() {
-        lives.set(lives.get() - 1);
-        logger.info("Lost a life");
+    private void show() {
+        synchronized (snapshotLock) {
+            var latest = published;
+            published = shown;
+            shown = latest;
+            published.clearEvents();
+            //Cleared with the swap, so the next show is only queued once something newer has been published
+            showPending.set(false);
+        }
+
+        score.set(shown.score);
+        level.set(shown.level);
+        lives.set(shown.lives);
+        multiplier.set(shown.multiplier);
+
+        if (shown.has(GameSnapshot.LINES_CLEARED) && lineClearedListener != null) {
+            lineClearedListener.setOnLineCleared(clearedBlocks(shown));
+        }
+        grid.setValues(shown.values);
+
+        if (shown.has(GameSnapshot.NEXT_PIECE) && nextPieceListener != null) {
+            nextPieceListener.nextPiece(shown.currentPiece, shown.followingPiece);
+        }
+        if (shown.has(GameSnapshot.TIMER_RESET) && gameLoopListener != null) {
+            gameLoopListener.setOnGameLoop(shown.timerDelay);
+        }
+
+        playSounds(shown);
+
+        if (shown.has(GameSnapshot.GAME_OVER) && gameOverListener != null) {
+            gameOverListener.setOnGameOver();
+        }
+    }
+
+    /**
+     * Play the sound for each kind of event in a snapshot, once each
+     * @param snapshot the snapshot being shown
+     */
+    private void playSounds(GameSnapshot snapshot) {
+        if (snapshot.has(GameSnapshot.PLACED)) audioPlayer.playAudioFile("place.wav");
+        if (snapshot.has(GameSnapshot.REJECTED | GameSnapshot.NOT_ENOUGH_POINTS)) {
+            audioPlayer.playAudioFile("fail.wav");
+        }
+        if (snapshot.has(GameSnapshot.LEVEL_UP)) audioPlayer.playAudioFile("level.wav");
+        if (snapshot.has(GameSnapshot.LIFE_LOST | GameSnapshot.GAME_OVER)) {
+            audioPlayer.playAudioFile("lifelose.wav");
+        }
+        if (snapshot.has(GameSnapshot.GRID_CLEARED)) audioPlayer.playAudioFile("explode.wav");
+        if (snapshot.has(GameSnapshot.LIFE_GAINED)) audioPlayer.playAudioFile("lifegain.wav");
     }
 
     /**
-     * Checks if user is alive
-     * @return returns a boolean, true if lives >= 0 and false if below 0
+     * Get the coordinates of every block in the lines cleared, for the line cleared listener
+     * @param snapshot the snapshot being shown
+     * @return set of block coordinates
      */
-    public boolean isAlive() {
-        boolean alive;
-        if (lives.get() > 0) {
-            alive = true;
-        } else {
-            alive = false;
-            logger.info("Game over");
-            if (gameOverListener != null) {
-                Platform.runLater(() -> gameOverListener.setOnGameOver());
+    private HashSet<GameBlockCoordinate> clearedBlocks(GameSnapshot snapshot) {
+        HashSet<GameBlockCoordinate> blocksToClear = new HashSet<>();
+        for (var x = 0; x < cols; x++) {
+            for (var y = 0; y < rows; y++) {
+                if ((snapshot.clearedRows & (1L << y)) != 0 || (snapshot.clearedCols & (1L << x)) != 0) {
+                    blocksToClear.add(new GameBlockCoordinate(x, y));
+                }
             }
         }
-        return alive;
+        return blocksToClear;
     }
 
     /**
-     * Loop through certain events when the timer ends
+     * Record that a piece was placed
      */
-    public void gameLoop() {
-        if (isAlive()) removeLife();
-        nextPiece();
-        audioPlayer.playAudioFile("lifelose.wav");
-        setMultiplier(1);
-        gameLoopListener();
-        loop = this.timer.schedule(this::gameLoop, getTimerDelay(), TimeUnit.MILLISECONDS);
+    @Override
+    public void piecePlayed(GamePiece piece, int x, int y) {
+        logger.info("Played {} at {}, {}", piece, x, y);
+        events |= GameSnapshot.PLACED;
+        if (recorder != null) recorder.piecePlayed(piece, x, y);
     }
 
     /**
-     * Sets the listener
-     * @param listener listener from another class
+     * Record that a piece did not fit
      */
-    public void setOnGameOver(GameOverListener listener) {
-        gameOverListener = listener;
+    @Override
+    public void pieceRejected(GamePiece piece, int x, int y) {
+        events |= GameSnapshot.REJECTED;
     }
-}
 
+    /**
+     * Record the lines about to be cleared, for the line cleared listener
+     */
+    @Override
+    public void linesCleared(LineClear lines) {
+        logger.info("Clearing rows {} and columns {}", Long.toBinaryString(lines.getRows()),
+            Long.toBinaryString(lines.getCols()));
+        events |= GameSnapshot.LINES_CLEARED;
+        clearedRows |= lines.getRows();
+        clearedCols |= lines.getCols();
+    }
+
+    /**
+     * Record a rotation in the replay
+     */
+    @Override
+    public void pieceRotated(int rotations) {
+        if (recorder != null) recorder.pieceRotated(rotations);
+    }
+
+    /**
+     * Record a swap in the replay
+     */
+    @Override
+    public void piecesSwapped() {
+        if (recorder != null) recorder.piecesSwapped();
+    }
+
+    /**
+     * Record the grid being cleared in the replay
+     */
+    @Override
+    public void gridCleared() {
+        if (recorder != null) recorder.gridCleared();
+    }
+
+    /**
+     * Record a life being bought in the replay
+     */
+    @Override
+    public void lifeGained(int lives) {
+        if (recorder != null) recorder.lifeGained(lives);
+    }
+
+    /**
+     * Record the timer running out in the replay
+     */
+    @Override
+    public void timerExpired() {
+        if (recorder != null) recorder.timerExpired();
+    }
+
+    /**
+     * Record that the pieces changed
+     */
+    @Override
+    public void nextPiece(GamePiece currentPiece, GamePiece followingPiece) {
+        logger.info("The next piece is: {}", currentPiece);
+        events |= GameSnapshot.NEXT_PIECE;
+    }
+
+    /**
+     * Record a level up
+     */
+    @Override
+    public void levelChanged(int level) {
+        logger.info("Leveled up");
+        events |= GameSnapshot.LEVEL_UP;
+    }
+
+    /**
+     * Record a life being lost
+     */
+    @Override
+    public void lifeLost(int lives) {
+        logger.info("Lost a life");
+        events |= GameSnapshot.LIFE_LOST;
+    }
+
+    /**
+     * Record the game ending and stop the game loop
+     */
+    @Override
+    public void gameOver() {
+        logger.info("Game over");
+        events |= GameSnapshot.GAME_OVER;
+        running = false;
+        if (loop != null) {
+            loop.cancel();
+        }
+        endRecording();
+    }
+}
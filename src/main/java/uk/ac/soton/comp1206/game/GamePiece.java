@@ -4,7 +4,8 @@ package uk.ac.soton.comp1206.game;
  * Instances of GamePiece Represents the model of a specific Game Piece with it's block makeup.
  *
  * The GamePiece class also contains a factory for producing a GamePiece of a particular shape, as specified by it's
- * number.
+ * number. Every rotation of every piece is built once up front, so GamePieces are immutable and shared: rotating a piece
+ * just looks up another entry in the table.
  */
 public class GamePiece {
 
@@ -14,154 +15,207 @@ public class GamePiece {
     public static final int PIECES = 15;
 
     /**
-     * The 2D grid representation of the shape of this piece
+     * The number of distinct rotations of each piece
      */
-    private int[][] blocks;
+    public static final int ROTATIONS = 4;
 
     /**
-     * The value of this piece
+     * The names of each piece, indexed by piece number
      */
-    private final int value;
+    private static final String[] NAMES = {
+        "Line", "C", "Plus", "Dot", "Square", "L", "J", "S", "Z", "T", "X", "Corner", "Inverse Corner", "Diagonal",
+        "Double"
+    };
 
     /**
-     * The name of this piece
+     * The unrotated 3x3 shape of each piece, indexed by piece number
      */
-    private final String name;
+    private static final int[][][] SHAPES = {
+        {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}}, //Line
+        {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}}, //C
+        {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}}, //Plus
+        {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}}, //Dot
+        {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}}, //Square
+        {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}}, //L
+        {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}}, //J
+        {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}}, //S
+        {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}}, //Z
+        {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}}, //T
+        {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}}, //X
+        {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}}, //Corner
+        {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}}, //Inverse Corner
+        {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}}, //Diagonal
+        {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}}  //Double
+    };
 
     /**
-     * Create a new GamePiece of the specified piece number
-     * @param piece piece number
-     * @return the created GamePiece
+     * Every orientation of every piece, built once and indexed by piece * ROTATIONS + rotation
      */
-    public static GamePiece createPiece(int piece) {
-        switch (piece) {
-            //Line
-            case 0 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}};
-                return new GamePiece("Line", blocks, 1);
-            }
-
-            //C
-            case 1 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}};
-                return new GamePiece("C", blocks, 2);
-            }
-
-            //Plus
-            case 2 -> {
-                int[][] blocks = {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}};
-                return new GamePiece("Plus", blocks, 3);
-            }
-
-            //Dot
-            case 3 -> {
-                int[][] blocks = {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Dot", blocks, 4);
-            }
-
-            //Square
-            case 4 -> {
-                int[][] blocks = {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Square", blocks, 5);
+    private static final GamePiece[] ORIENTATIONS = new GamePiece[PIECES * ROTATIONS];
+
+    static {
+        for (var piece = 0; piece < PIECES; piece++) {
+            var blocks = SHAPES[piece];
+            for (var rotation = 0; rotation < ROTATIONS; rotation++) {
+                ORIENTATIONS[piece * ROTATIONS + rotation] = new GamePiece(piece, rotation, blocks);
+                blocks = rotateBlocks(blocks);
             }
+        }
+    }
 
-            //L
-            case 5 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}};
-                return new GamePiece("L", blocks, 6);
-            }
+    /**
+     * The piece number
+     */
+    private final int piece;
 
-            //J
-            case 6 -> {
-                int[][] blocks = {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}};
-                return new GamePiece("J", blocks, 7);
-            }
+    /**
+     * The number of clockwise rotations from the piece's starting orientation
+     */
+    private final int rotation;
 
-            //S
-            case 7 -> {
-                int[][] blocks = {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}};
-                return new GamePiece("S", blocks, 8);
-            }
+    /**
+     * The 2D grid representation of the shape of this piece
+     */
+    private final int[][] blocks;
 
-            //Z
-            case 8 -> {
-                int[][] blocks = {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}};
-                return new GamePiece("Z", blocks, 9);
-            }
+    /**
+     * The value of this piece
+     */
+    private final int value;
 
-            //T
-            case 9 -> {
-                int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-                return new GamePiece("T", blocks, 10);
-            }
+    /**
+     * The name of this piece
+     */
+    private final String name;
 
-            //X
-            case 10 -> {
-                int[][] blocks = {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}};
-                return new GamePiece("X", blocks, 11);
-            }
+    /**
+     * The column offset of each block from the centre of the piece
+     */
+    private final int[] offsetX;
 
-            //Corner
-            case 11 -> {
-                int[][] blocks = {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}};
-                return new GamePiece("Corner", blocks, 12);
-            }
+    /**
+     * The row offset of each block from the centre of the piece, matching offsetX
+     */
+    private final int[] offsetY;
 
-            //Inverse Corner
-            case 12 -> {
-                int[][] blocks = {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Inverse Corner", blocks, 13);
-            }
+    /**
+     * The bounding box of the blocks, as offsets from the centre of the piece
+     */
+    private final int minX, maxX, minY, maxY;
 
-            //Diagonal
-            case 13 -> {
-                int[][] blocks = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
-                return new GamePiece("Diagonal", blocks, 14);
-            }
+    /**
+     * The occupancy of the 3x3 grid, where bit (x + 3 * y) is set for each filled block
+     */
+    private final int mask;
 
-            //Double
-            case 14 -> {
-                int[][] blocks = {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}};
-                return new GamePiece("Double", blocks, 15);
-            }
-        }
+    /**
+     * The filled blocks in each row of the piece, indexed by row offset + 1, with bit 0 being the leftmost column
+     * of the bounding box
+     */
+    private final int[] rowBits = new int[3];
 
-        //Not a valid piece number
-        throw new IndexOutOfBoundsException("No such piece: " + piece);
+    /**
+     * Get the GamePiece of the specified piece number
+     * @param piece piece number
+     * @return the GamePiece
+     */
+    public static GamePiece createPiece(int piece) {
+        return createPiece(piece, 0);
     }
 
     /**
-     * Create a new GamePiece of the specified piece number and rotation
+     * Get the GamePiece of the specified piece number and rotation
      * @param piece piece number
      * @param rotation number of times to rotate
-     * @return the created GamePiece
+     * @return the GamePiece
      */
     public static GamePiece createPiece(int piece, int rotation) {
-        var newPiece = createPiece(piece);
-
-        newPiece.rotate(rotation);
-        return newPiece;
+        if (piece < 0 || piece >= PIECES) {
+            //Not a valid piece number
+            throw new IndexOutOfBoundsException("No such piece: " + piece);
+        }
+        return ORIENTATIONS[piece * ROTATIONS + (rotation & (ROTATIONS - 1))];
     }
 
     /**
-     * Create a new GamePiece with the given name, block makeup and value. Should not be called directly, only via the
-     * factory.
-     * @param name name of the piece
-     * @param blocks block makeup of the piece
-     * @param value the value of this piece
+     * Create a new orientation of a piece. Should not be called directly, only when building the orientation table.
+     * @param piece piece number
+     * @param rotation number of rotations applied to the shape
+     * @param shape block makeup of the piece, with 1 for each filled block
      */
-    private GamePiece(String name, int[][] blocks, int value) {
-        this.name = name;
-        this.blocks = blocks;
-        this.value = value;
+    private GamePiece(int piece, int rotation, int[][] shape) {
+        this.piece = piece;
+        this.rotation = rotation;
+        this.name = NAMES[piece];
+        this.value = piece + 1;
 
         //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
-        for(int x = 0; x < blocks.length; x++) {
-            for (int y = 0; y < blocks[x].length; y++) {
-                if(blocks[x][y] == 0) continue;
+        blocks = new int[3][3];
+        var count = 0;
+        for (int x = 0; x < shape.length; x++) {
+            for (int y = 0; y < shape[x].length; y++) {
+                if (shape[x][y] == 0) continue;
                 blocks[x][y] = value;
+                count++;
+            }
+        }
+
+        //Work out where each block sits relative to the centre
+        offsetX = new int[count];
+        offsetY = new int[count];
+        int mask = 0, minX = 1, maxX = -1, minY = 1, maxY = -1, block = 0;
+        for (int x = 0; x < blocks.length; x++) {
+            for (int y = 0; y < blocks[x].length; y++) {
+                if (blocks[x][y] == 0) continue;
+                offsetX[block] = x - 1;
+                offsetY[block] = y - 1;
+                block++;
+                mask |= 1 << (x + 3 * y);
+                minX = Math.min(minX, x - 1);
+                maxX = Math.max(maxX, x - 1);
+                minY = Math.min(minY, y - 1);
+                maxY = Math.max(maxY, y - 1);
             }
         }
+        for (var i = 0; i < offsetX.length; i++) {
+            rowBits[offsetY[i] + 1] |= 1 << (offsetX[i] - minX);
+        }
+        this.mask = mask;
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Rotate a 3x3 grid of blocks once clockwise
+     * @param blocks the blocks to rotate
+     * @return a new rotated grid
+     */
+    private static int[][] rotateBlocks(int[][] blocks) {
+        int[][] rotated = new int[3][3];
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                rotated[2 - y][x] = blocks[x][y];
+            }
+        }
+        return rotated;
+    }
+
+    /**
+     * Get the piece number
+     * @return piece number
+     */
+    public int getPiece() {
+        return piece;
+    }
+
+    /**
+     * Get the number of clockwise rotations from the starting orientation
+     * @return rotation, between 0 and 3
+     */
+    public int getRotation() {
+        return rotation;
     }
 
     /**
@@ -173,7 +227,7 @@ public class GamePiece {
     }
 
     /**
-     * Get the block makeup of this piece
+     * Get the block makeup of this piece. The array is shared and must not be modified.
      * @return 2D grid of the blocks representing the piece shape
      */
     public int[][] getBlocks() {
@@ -181,33 +235,99 @@ public class GamePiece {
     }
 
     /**
-     * Rotate this piece the given number of rotations
-     * @param rotations number of rotations
+     * Get the number of blocks making up this piece
+     * @return number of blocks
      */
-    public void rotate(int rotations) {
-        for(int rotated = 0; rotated < rotations; rotated ++) {
-            rotate();
-        }
+    public int getBlockCount() {
+        return offsetX.length;
     }
 
     /**
-     * Rotate this piece exactly once by rotating it's 3x3 grid
+     * Get the column offset of a block from the centre of the piece
+     * @param block block index, less than getBlockCount()
+     * @return column offset, between -1 and 1
      */
-    public void rotate() {
-        int[][] rotated = new int[blocks.length][blocks[0].length];
-        rotated[2][0] = blocks[0][0];
-        rotated[1][0] = blocks[0][1];
-        rotated[0][0] = blocks[0][2];
+    public int getOffsetX(int block) {
+        return offsetX[block];
+    }
 
-        rotated[2][1] = blocks[1][0];
-        rotated[1][1] = blocks[1][1];
-        rotated[0][1] = blocks[1][2];
+    /**
+     * Get the row offset of a block from the centre of the piece
+     * @param block block index, less than getBlockCount()
+     * @return row offset, between -1 and 1
+     */
+    public int getOffsetY(int block) {
+        return offsetY[block];
+    }
 
-        rotated[2][2] = blocks[2][0];
-        rotated[1][2] = blocks[2][1];
-        rotated[0][2] = blocks[2][2];
+    /**
+     * @return the smallest column offset of any block
+     */
+    public int getMinX() {
+        return minX;
+    }
 
-        blocks = rotated;
+    /**
+     * @return the largest column offset of any block
+     */
+    public int getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * @return the smallest row offset of any block
+     */
+    public int getMinY() {
+        return minY;
+    }
+
+    /**
+     * @return the largest row offset of any block
+     */
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Get the occupancy of the 3x3 grid, where bit (x + 3 * y) is set for each filled block
+     * @return occupancy mask
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * Get the filled blocks in a row of the piece, with bit 0 being the leftmost column of the bounding box
+     * @param offsetY row offset from the centre, between -1 and 1
+     * @return row occupancy mask
+     */
+    public int getRowBits(int offsetY) {
+        return rowBits[offsetY + 1];
+    }
+
+    /**
+     * Get the position of this piece in the orientation table, unique to its piece number and rotation
+     * @return orientation index, less than PIECES * ROTATIONS
+     */
+    public int getIndex() {
+        return piece * ROTATIONS + rotation;
+    }
+
+    /**
+     * Get this piece rotated the given number of times
+     * @param rotations number of clockwise rotations
+     * @return the rotated piece
+     */
+    public GamePiece rotate(int rotations) {
+        return ORIENTATIONS[piece * ROTATIONS + ((rotation + rotations) & (ROTATIONS - 1))];
+    }
+
+    /**
+     * Get this piece rotated exactly once clockwise
+     * @return the rotated piece
+     */
+    public GamePiece rotate() {
+        return rotate(1);
     }
 
 
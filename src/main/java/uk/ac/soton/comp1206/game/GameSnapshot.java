@@ -0,0 +1,88 @@
+package uk.ac.soton.comp1206.game;
+
+import uk.ac.soton.comp1206.engine.GameEngine;
+
+/**
+ * A copy of the state of a game at the end of a batch of commands, along with everything that happened during the
+ * batch, ready to be shown on the JavaFX thread. When several batches are published before the user interface catches
+ * up, their events are merged together and the state is the latest.
+ */
+class GameSnapshot {
+
+    /**
+     * Events which can happen during a batch, combined into a bitmask
+     */
+    static final int PLACED = 1;
+    static final int REJECTED = 1 << 1;
+    static final int LINES_CLEARED = 1 << 2;
+    static final int LEVEL_UP = 1 << 3;
+    static final int LIFE_LOST = 1 << 4;
+    static final int GAME_OVER = 1 << 5;
+    static final int GRID_CLEARED = 1 << 6;
+    static final int LIFE_GAINED = 1 << 7;
+    static final int NOT_ENOUGH_POINTS = 1 << 8;
+    static final int NEXT_PIECE = 1 << 9;
+    static final int TIMER_RESET = 1 << 10;
+
+    /**
+     * The events that happened
+     */
+    int events;
+
+    /**
+     * The rows and columns cleared
+     */
+    long clearedRows, clearedCols;
+
+    /**
+     * The state of the game
+     */
+    int score, level, lives, multiplier, timerDelay;
+    GamePiece currentPiece, followingPiece;
+
+    /**
+     * The value of every block in the grid
+     */
+    final byte[] values;
+
+    /**
+     * Create a new empty snapshot
+     * @param cells number of blocks in the grid
+     */
+    GameSnapshot(int cells) {
+        values = new byte[cells];
+    }
+
+    /**
+     * Copy the current state of the engine into this snapshot
+     * @param engine the engine
+     */
+    void capture(GameEngine engine) {
+        score = engine.getScore();
+        level = engine.getLevel();
+        lives = engine.getLives();
+        multiplier = engine.getMultiplier();
+        timerDelay = engine.getTimerDelay();
+        currentPiece = engine.getCurrentPiece();
+        followingPiece = engine.getFollowingPiece();
+        engine.getGrid().copyValues(values);
+    }
+
+    /**
+     * Forget the events held, ready to collect the next batch
+     */
+    void clearEvents() {
+        events = 0;
+        clearedRows = 0;
+        clearedCols = 0;
+    }
+
+    /**
+     * Check whether an event happened
+     * @param event the event
+     * @return true if it happened
+     */
+    boolean has(int event) {
+        return (events & event) != 0;
+    }
+}
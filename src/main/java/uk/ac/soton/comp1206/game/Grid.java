@@ -1,16 +1,14 @@
 package uk.ac.soton.comp1206.game;
 
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.GridListener;
 
 /**
  * The Grid is a model which holds the state of a game board. It is made up of a set of Integer values arranged in a 2D
  * arrow, with rows and columns.
  *
- * Each value inside the Grid is an IntegerProperty can be bound to enable modification and display of the contents of
- * the grid.
+ * Each value is held in a compact primitive colour plane, alongside an occupancy bitmask for every row and column, so
+ * the game logic never has to go through JavaFX properties. A GridListener can be attached to be told about changes,
+ * which is how a GridProperties view keeps a GameBoard bound to the grid.
  *
  * The Grid contains functions related to modifying the model, for example, placing a piece inside the grid.
  *
@@ -18,7 +16,10 @@ import org.apache.logging.log4j.Logger;
  */
 public class Grid {
 
-    private static final Logger logger = LogManager.getLogger(Grid.class);
+    /**
+     * The largest number of rows or columns a grid can have, limited by the size of the occupancy masks
+     */
+    public static final int MAX_SIZE = Long.SIZE;
 
     /**
      * The number of columns in this grid
@@ -31,9 +32,45 @@ public class Grid {
     private final int rows;
 
     /**
-     * The grid is a 2D arrow with rows and columns of SimpleIntegerProperties.
+     * The colour value of every block in the grid, indexed by y * cols + x
+     */
+    private final byte[] values;
+
+    /**
+     * Occupancy of each row, bit x is set when the block in column x is filled
+     */
+    private final long[] rowMasks;
+
+    /**
+     * Occupancy of each column, bit y is set when the block in row y is filled
+     */
+    private final long[] colMasks;
+
+    /**
+     * The row mask of a full row and the column mask of a full column
      */
-    private final SimpleIntegerProperty[][] grid;
+    private final long fullRow, fullCol;
+
+    /**
+     * Occupancy of the whole grid, bit (y * cols + x) is set when the block at x, y is filled. Only kept for grids small
+     * enough to have a placement table.
+     */
+    private long occupancy;
+
+    /**
+     * Counts every change to which blocks are filled, so anything worked out from the occupancy knows when it is stale
+     */
+    private int version = 0;
+
+    /**
+     * Precomputed piece footprints for this size of grid, or null if the grid is too large for one
+     */
+    private final PlacementTable placements;
+
+    /**
+     * The listener to call when a block value changes
+     */
+    private GridListener gridListener;
 
     /**
      * Create a new Grid with the specified number of columns and rows and initialise them
@@ -41,28 +78,27 @@ public class Grid {
      * @param rows number of rows
      */
     public Grid(int cols, int rows) {
+        if (cols < 1 || rows < 1 || cols > MAX_SIZE || rows > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported grid size: " + cols + " x " + rows);
+        }
         this.cols = cols;
         this.rows = rows;
 
-        //Create the grid itself
-        grid = new SimpleIntegerProperty[cols][rows];
-
-        //Add a SimpleIntegerProperty to every block in the grid
-        for(var y = 0; y < rows; y++) {
-            for(var x = 0; x < cols; x++) {
-                grid[x][y] = new SimpleIntegerProperty(0);
-            }
-        }
+        //Create the grid itself, every block starts empty
+        values = new byte[cols * rows];
+        rowMasks = new long[rows];
+        colMasks = new long[cols];
+        fullRow = -1L >>> (Long.SIZE - cols);
+        fullCol = -1L >>> (Long.SIZE - rows);
+        placements = PlacementTable.fits(cols, rows) ? PlacementTable.forSize(cols, rows) : null;
     }
 
     /**
-     * Get the Integer property contained inside the grid at a given row and column index. Can be used for binding.
-     * @param x column
-     * @param y row
-     * @return the IntegerProperty at the given x and y in this grid
+     * Set the listener to be told whenever a block in this grid changes value
+     * @param listener listener to set, or null to detach
      */
-    public IntegerProperty getGridProperty(int x, int y) {
-        return grid[x][y];
+    public void setOnGridChanged(GridListener listener) {
+        this.gridListener = listener;
     }
 
     /**
@@ -70,25 +106,92 @@ public class Grid {
      * @param x column
      * @param y row
      * @param value the new value
+     * @throws IndexOutOfBoundsException if there is no such block
      */
     public void set(int x, int y, int value) {
-        grid[x][y].set(value);
+        if (x < 0 || y < 0 || x >= cols || y >= rows) {
+            throw new IndexOutOfBoundsException("No block at " + x + "," + y + " in a " + cols + " x " + rows + " grid");
+        }
+        var index = y * cols + x;
+        if (values[index] == value) return;
+        if ((values[index] == 0) != (value == 0)) version++;
+        values[index] = (byte) value;
+
+        //Keep the occupancy masks in step with the colour plane. The whole grid mask only fits small grids.
+        if (value == 0) {
+            rowMasks[y] &= ~(1L << x);
+            colMasks[x] &= ~(1L << y);
+            if (placements != null) occupancy &= ~(1L << index);
+        } else {
+            rowMasks[y] |= 1L << x;
+            colMasks[x] |= 1L << y;
+            if (placements != null) occupancy |= 1L << index;
+        }
+
+        if (gridListener != null) {
+            gridListener.gridChanged(x, y, value);
+        }
     }
 
     /**
      * Get the value represented at the given x and y index within the grid
      * @param x column
      * @param y row
-     * @return the value
+     * @return the value, or -1 if there is no such block
      */
     public int get(int x, int y) {
-        try {
-            //Get the value held in the property at the x and y index provided
-            return grid[x][y].get();
-        } catch (ArrayIndexOutOfBoundsException e) {
+        if (x < 0 || y < 0 || x >= cols || y >= rows) {
             //No such index
             return -1;
         }
+        return values[y * cols + x];
+    }
+
+    /**
+     * Copy the value of every block into an array, indexed by y * cols + x
+     * @param dest array of at least cols * rows values
+     */
+    public void copyValues(byte[] dest) {
+        System.arraycopy(values, 0, dest, 0, values.length);
+    }
+
+    /**
+     * Set the value of every block from an array, indexed by y * cols + x. Only blocks that actually change are set.
+     * @param source array of at least cols * rows values
+     */
+    public void setValues(byte[] source) {
+        for (var y = 0; y < rows; y++) {
+            for (var x = 0; x < cols; x++) {
+                set(x, y, source[y * cols + x]);
+            }
+        }
+    }
+
+    /**
+     * Get the occupancy version, which changes whenever a block is filled or emptied but not when a block only changes
+     * colour
+     * @return the version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the occupancy of a row, where bit x is set if the block in column x is filled
+     * @param y row
+     * @return row occupancy mask
+     */
+    public long getRowMask(int y) {
+        return rowMasks[y];
+    }
+
+    /**
+     * Get the occupancy of a column, where bit y is set if the block in row y is filled
+     * @param x column
+     * @return column occupancy mask
+     */
+    public long getColMask(int x) {
+        return colMasks[x];
     }
 
     /**
@@ -108,33 +211,31 @@ public class Grid {
     }
 
     /**
-     * Check whether a piece can be played in the grid at the given x,y
+     * Check whether a piece can be played in the grid at the given x,y.
+     *
+     * Small grids check the precomputed footprint of the piece against the occupancy of the whole grid in one go. Larger
+     * grids check each row of the piece against the occupancy of the matching grid row. Either way, positions where the
+     * piece would go outside the grid are rejected.
      * @param piece the piece to play
      * @param placeX placement X
      * @param placeY placement Y
      * @return whether the piece can be played or not
      */
     public boolean canPlayPiece(GamePiece piece, int placeX, int placeY) {
-        logger.info("Checking if we can play the piece {} at {}, {}", piece, placeX, placeY);
-
-        int topX = placeX - 1; // Adjusting to make sure pieces are played from their center
-        int topY = placeY - 1;
-
-        int[][] blocks = piece.getBlocks(); // 2D array representation of the array
-
-        for (var blockX = 0; blockX < blocks.length; blockX++) {
-            for (var blockY = 0; blockY < blocks.length; blockY++) {
-                // BlockX and blockY coordinate inside the blocks 3x3 array
-                var blockValue = blocks[blockX][blockY];
-                if (blockValue > 0) {
-                    // Checking if we can place this block on our grid
-                    var gridValue = get(topX + blockX, topY + blockY);
-                    if (gridValue != 0) {
-                        logger.info("Unable to place piece, conflict at {}, {}",
-                            placeX+blockX, placeY+blockY);
-                        return false;
-                    }
-                }
+        if (placements != null) {
+            var mask = placements.getMask(piece, placeX, placeY);
+            return mask != 0 && (mask & occupancy) == 0;
+        }
+
+        // Adjusting to the bounding box of the piece, as pieces are played from their center
+        var left = placeX + piece.getMinX();
+        if (left < 0 || placeX + piece.getMaxX() >= cols
+            || placeY + piece.getMinY() < 0 || placeY + piece.getMaxY() >= rows) {
+            return false;
+        }
+        for (var offsetY = piece.getMinY(); offsetY <= piece.getMaxY(); offsetY++) {
+            if ((rowMasks[placeY + offsetY] & ((long) piece.getRowBits(offsetY) << left)) != 0) {
+                return false;
             }
         }
         // Nothing in the way
@@ -148,32 +249,66 @@ public class Grid {
      * @param placeY placement Y
      */
     public void playPiece(GamePiece piece, int placeX, int placeY) {
-        logger.info("Playing the piece {} at {}, {}", piece, placeX, placeY);
-
-        int topX = placeX - 1; // Adjusting to make sure pieces are played from their center
-        int topY = placeY - 1;
+        // Return if we can't play the piece
+        if (!canPlayPiece(piece, placeX, placeY)) return;
 
         int value = piece.getValue(); // colour of the piece
-        int[][] blocks = piece.getBlocks(); // 2D array representation of the array
+        for (var block = 0; block < piece.getBlockCount(); block++) {
+            set(placeX + piece.getOffsetX(block), placeY + piece.getOffsetY(block), value);
+        }
+    }
 
-        // Return if we can't play the piece
-        if (!canPlayPiece(piece, placeX, placeY)) return;
+    /**
+     * Find the full lines running through a piece just played at x,y. Only the rows and columns the piece covers can
+     * have been filled by it, so only those are checked, against their occupancy masks.
+     * @param piece the piece that was played
+     * @param placeX placement X
+     * @param placeY placement Y
+     * @param lines reset and filled with the full rows and columns
+     */
+    public void findLines(GamePiece piece, int placeX, int placeY, LineClear lines) {
+        lines.reset();
+        for (var y = placeY + piece.getMinY(); y <= placeY + piece.getMaxY(); y++) {
+            if (rowMasks[y] == fullRow) lines.addRow(y);
+        }
+        for (var x = placeX + piece.getMinX(); x <= placeX + piece.getMaxX(); x++) {
+            if (colMasks[x] == fullCol) lines.addCol(x);
+        }
+    }
 
-        for (var blockX = 0; blockX < blocks.length; blockX++) {
-            for (var blockY = 0; blockY < blocks.length; blockY++) {
-                // BlockX and blockY coordinate inside the blocks 3x3 array
-                var blockValue = blocks[blockX][blockY];
-                if (blockValue > 0) {
-                    set(topX + blockX, topY + blockY, value);
-                }
+    /**
+     * Empty every block covered by the given lines
+     * @param lines the full rows and columns to clear
+     */
+    public void clearLines(LineClear lines) {
+        var fullRows = lines.getRows();
+        while (fullRows != 0) {
+            var y = Long.numberOfTrailingZeros(fullRows);
+            for (var x = 0; x < cols; x++) {
+                set(x, y, 0);
+            }
+            fullRows &= fullRows - 1;
+        }
+        var fullCols = lines.getCols();
+        while (fullCols != 0) {
+            var x = Long.numberOfTrailingZeros(fullCols);
+            for (var y = 0; y < rows; y++) {
+                set(x, y, 0);
             }
+            fullCols &= fullCols - 1;
         }
     }
 
+    /**
+     * Empty every block in the grid
+     */
     public void clear() {
-        for (var x = 0; x < getCols(); x++) {
-            for (var y = 0; y < getRows(); y++) {
-                set(x,y,0);
+        for (var y = 0; y < rows; y++) {
+            //Only visit the blocks that are actually filled
+            var mask = rowMasks[y];
+            while (mask != 0) {
+                set(Long.numberOfTrailingZeros(mask), y, 0);
+                mask &= mask - 1;
             }
         }
     }
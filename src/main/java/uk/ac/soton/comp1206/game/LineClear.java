@@ -0,0 +1,98 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * The full lines found in a Grid after a piece is played, as a bitmask of rows and a bitmask of columns.
+ *
+ * A LineClear is reused from move to move, so finding and clearing lines never allocates.
+ */
+public class LineClear {
+
+    /**
+     * Full rows, bit y is set if row y is full
+     */
+    private long rows;
+
+    /**
+     * Full columns, bit x is set if column x is full
+     */
+    private long cols;
+
+    /**
+     * Forget any lines held from a previous move
+     */
+    public void reset() {
+        rows = 0;
+        cols = 0;
+    }
+
+    /**
+     * Mark a row as full
+     * @param y row
+     */
+    void addRow(int y) {
+        rows |= 1L << y;
+    }
+
+    /**
+     * Mark a column as full
+     * @param x column
+     */
+    void addCol(int x) {
+        cols |= 1L << x;
+    }
+
+    /**
+     * Get the full rows
+     * @return bitmask where bit y is set if row y is full
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the full columns
+     * @return bitmask where bit x is set if column x is full
+     */
+    public long getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of full lines, counting rows and columns
+     * @return number of lines
+     */
+    public int getLineCount() {
+        return Long.bitCount(rows) + Long.bitCount(cols);
+    }
+
+    /**
+     * Get the number of distinct blocks covered by the full lines, where a block in both a full row and a full column
+     * is only counted once
+     * @param gridCols number of columns in the grid
+     * @param gridRows number of rows in the grid
+     * @return number of blocks
+     */
+    public int getBlockCount(int gridCols, int gridRows) {
+        var fullRows = Long.bitCount(rows);
+        var fullCols = Long.bitCount(cols);
+        return fullRows * gridCols + fullCols * gridRows - fullRows * fullCols;
+    }
+
+    /**
+     * Check whether a block is covered by any of the full lines
+     * @param x column
+     * @param y row
+     * @return true if the block is in a full row or column
+     */
+    public boolean contains(int x, int y) {
+        return (rows & (1L << y)) != 0 || (cols & (1L << x)) != 0;
+    }
+
+    /**
+     * Check whether there are no full lines
+     * @return true if nothing needs clearing
+     */
+    public boolean isEmpty() {
+        return rows == 0 && cols == 0;
+    }
+}
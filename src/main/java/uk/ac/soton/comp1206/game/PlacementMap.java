@@ -0,0 +1,63 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * Records where a piece can be played on a grid: for every block, whether the piece fits with its centre there.
+ *
+ * The map is only worked out again when the grid's occupancy, the piece or its rotation has changed since the last
+ * update, so it can be asked about on every mouse move or key press for free.
+ */
+public class PlacementMap {
+
+    /**
+     * For each row, bit x is set if the piece fits with its centre at x in that row
+     */
+    private final long[] valid;
+
+    /**
+     * The grid, piece and grid version the map was worked out for
+     */
+    private Grid grid;
+    private GamePiece piece;
+    private int version;
+
+    /**
+     * Create a new, empty map for a grid size
+     * @param rows number of rows
+     */
+    public PlacementMap(int rows) {
+        this.valid = new long[rows];
+    }
+
+    /**
+     * Bring the map up to date for a grid and piece, working it out again only if either has changed
+     * @param grid the grid
+     * @param piece the piece, in the rotation to be played
+     * @return true if the map was worked out again
+     */
+    public boolean update(Grid grid, GamePiece piece) {
+        if (grid == this.grid && piece == this.piece && grid.getVersion() == version) return false;
+        this.grid = grid;
+        this.piece = piece;
+        this.version = grid.getVersion();
+
+        for (var y = 0; y < valid.length; y++) {
+            var row = 0L;
+            for (var x = 0; x < grid.getCols(); x++) {
+                if (grid.canPlayPiece(piece, x, y)) row |= 1L << x;
+            }
+            valid[y] = row;
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the piece fits with its centre at the given block, as of the last update
+     * @param x column
+     * @param y row
+     * @return true if it fits
+     */
+    public boolean isValid(int x, int y) {
+        if (y < 0 || y >= valid.length || x < 0 || x >= Long.SIZE) return false;
+        return (valid[y] & (1L << x)) != 0;
+    }
+}
@@ -0,0 +1,113 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed placement masks for every piece orientation at every position of a grid of a given size.
+ *
+ * Only grids with at most 64 blocks can be described by a single long, where bit (y * cols + x) represents the block
+ * at x, y. For those grids the table holds the footprint of each orientation shifted to each position, so checking a
+ * placement is a single AND against the occupancy of the grid. Positions where the piece would hang off the edge of
+ * the grid have a mask of 0, which no piece can otherwise have.
+ *
+ * Tables are shared between all grids of the same size.
+ */
+public final class PlacementTable {
+
+    /**
+     * Tables already built, keyed by columns and rows
+     */
+    private static final ConcurrentHashMap<Integer, PlacementTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * The number of columns in the grid
+     */
+    private final int cols;
+
+    /**
+     * The number of rows in the grid
+     */
+    private final int rows;
+
+    /**
+     * The footprint of each orientation at each position, indexed by orientation * cols * rows + y * cols + x
+     */
+    private final long[] masks;
+
+    /**
+     * Get the table for grids of the given size
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return the shared placement table
+     */
+    public static PlacementTable forSize(int cols, int rows) {
+        if (!fits(cols, rows)) {
+            throw new IllegalArgumentException("Grid too large for a placement table: " + cols + " x " + rows);
+        }
+        return tables.computeIfAbsent(cols << 8 | rows, key -> new PlacementTable(cols, rows));
+    }
+
+    /**
+     * Check whether a grid of the given size can use a placement table
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return true if every block of the grid fits in a single long
+     */
+    public static boolean fits(int cols, int rows) {
+        return cols * rows <= Long.SIZE;
+    }
+
+    /**
+     * Build the table for the given grid size
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    private PlacementTable(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+
+        var cells = cols * rows;
+        masks = new long[GamePiece.PIECES * GamePiece.ROTATIONS * cells];
+        for (var index = 0; index < GamePiece.PIECES * GamePiece.ROTATIONS; index++) {
+            var piece = GamePiece.createPiece(index / GamePiece.ROTATIONS, index % GamePiece.ROTATIONS);
+            for (var y = 0; y < rows; y++) {
+                for (var x = 0; x < cols; x++) {
+                    masks[index * cells + y * cols + x] = footprint(piece, x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Work out the footprint of a piece placed with its centre at x, y
+     * @param piece the piece
+     * @param x column
+     * @param y row
+     * @return the footprint, or 0 if any block would be outside the grid
+     */
+    private long footprint(GamePiece piece, int x, int y) {
+        if (x + piece.getMinX() < 0 || x + piece.getMaxX() >= cols
+            || y + piece.getMinY() < 0 || y + piece.getMaxY() >= rows) {
+            return 0;
+        }
+        long mask = 0;
+        for (var block = 0; block < piece.getBlockCount(); block++) {
+            mask |= 1L << ((y + piece.getOffsetY(block)) * cols + x + piece.getOffsetX(block));
+        }
+        return mask;
+    }
+
+    /**
+     * Get the footprint of a piece placed with its centre at x, y
+     * @param piece the piece
+     * @param x column
+     * @param y row
+     * @return the footprint, or 0 if the piece does not fit inside the grid there
+     */
+    public long getMask(GamePiece piece, int x, int y) {
+        if (x < 0 || y < 0 || x >= cols || y >= rows) {
+            return 0;
+        }
+        return masks[piece.getIndex() * cols * rows + y * cols + x];
+    }
+}
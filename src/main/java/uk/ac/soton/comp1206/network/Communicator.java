@@ -1,6 +1,7 @@
 package uk.ac.soton.comp1206.network;
 
 import com.neovisionaries.ws.client.*;
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -8,6 +9,7 @@ import uk.ac.soton.comp1206.event.CommunicationsListener;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Uses web sockets to talk to a web socket server and relays communication to attached listeners
@@ -26,7 +28,8 @@ public class Communicator {
     private WebSocket ws = null;
 
     /**
-     * Create a new communicator to the given web socket server
+     * Create a new communicator to the given web socket server. It connects in the background, so the game can carry
+     * on starting up in the meantime.
      *
      * @param server server to connect to
      */
@@ -35,10 +38,7 @@ public class Communicator {
         try {
             var socketFactory = new WebSocketFactory();
 
-            //Connect to the server
             ws = socketFactory.createSocket(server);
-            ws.connect();
-            logger.info("Connected to " + server);
 
             //When a message is received, call the receive method
             ws.addListener(new WebSocketAdapter() {
@@ -70,16 +70,38 @@ public class Communicator {
                     logger.error("Error:" + e.getMessage());
                     e.printStackTrace();
                 }
+                @Override
+                public void onConnected(WebSocket websocket, Map<String, List<String>> headers) {
+                    logger.info("Connected to " + server);
+                }
+                @Override
+                public void onConnectError(WebSocket websocket, WebSocketException e) {
+                    failed(e);
+                }
             });
 
+            //Connect to the server
+            ws.connectAsynchronously();
+
         } catch (Exception e){
-            logger.error("Socket error: " + e.getMessage());
-            e.printStackTrace();
+            failed(e);
+        }
+    }
+
+    /**
+     * Tell the player the server could not be reached, then exit
+     * @param e what went wrong
+     */
+    private void failed(Exception e) {
+        logger.error("Socket error: " + e.getMessage());
+        e.printStackTrace();
 
+        //Connecting happens in the background, so the alert must be shown on the JavaFX thread
+        Platform.runLater(() -> {
             Alert error = new Alert(Alert.AlertType.ERROR,"Unable to communicate with the TetrECS server\n\n" + e.getMessage() + "\n\nPlease ensure you are connected to the VPN");
             error.showAndWait();
             System.exit(1);
-        }
+        });
     }
 
     /** Send a message to the server
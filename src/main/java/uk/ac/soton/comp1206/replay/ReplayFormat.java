@@ -0,0 +1,54 @@
+package uk.ac.soton.comp1206.replay;
+
+/**
+ * The layout of a replay file.
+ *
+ * A replay starts with a fixed header: the magic number, the format version, the piece generator type, the seed, the
+ * columns and rows of the grid and the wall clock time the game started, in milliseconds since the epoch. Everything
+ * else is a sequence of records, each an opcode byte followed by the milliseconds since the previous record as a
+ * variable length integer, then any operands:
+ *
+ * PLACE: piece number * 4 + rotation, then x + 1 and y + 1, one byte each
+ * ROTATE: the number of clockwise rotations, one byte
+ * SWAP, TIMER, CLEAR_ALL, ADD_LIFE: nothing
+ * END: the final score, level and lives, as variable length integers
+ *
+ * Variable length integers use 7 bits per byte, lowest first, with the top bit set on every byte but the last. A
+ * placement made within a couple of seconds of the previous one takes 6 bytes.
+ */
+final class ReplayFormat {
+
+    /**
+     * "TRPL", the first four bytes of every replay
+     */
+    static final int MAGIC = 0x5452504C;
+
+    /**
+     * The current format version
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * Bytes in the header
+     */
+    static final int HEADER_SIZE = 4 + 1 + 1 + 8 + 1 + 1 + 8;
+
+    /**
+     * Record opcodes
+     */
+    static final byte PLACE = 1;
+    static final byte ROTATE = 2;
+    static final byte SWAP = 3;
+    static final byte TIMER = 4;
+    static final byte CLEAR_ALL = 5;
+    static final byte ADD_LIFE = 6;
+    static final byte END = 7;
+
+    /**
+     * The most bytes a single record can take
+     */
+    static final int MAX_RECORD_SIZE = 1 + 10 + 3 * 5;
+
+    private ReplayFormat() {
+    }
+}
@@ -0,0 +1,217 @@
+package uk.ac.soton.comp1206.replay;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.PieceGenerator;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * Plays replays recorded by a ReplayRecorder back through a GameEngine, with no user interface and no timer, to check
+ * that every move was legal and that the game really ended with the score, level and lives recorded. Replays are
+ * played as fast as the CPU allows, and a whole directory of them can be verified in parallel.
+ *
+ * Can be run from the command line with a replay file or directory of replays. Exits with status 1 if any replay
+ * fails to verify.
+ */
+public class ReplayPlayer {
+
+    private static final Logger logger = LogManager.getLogger(ReplayPlayer.class);
+
+    /**
+     * The file extension replays are saved with
+     */
+    public static final String EXTENSION = ".replay";
+
+    /**
+     * Verify a replay file or every replay in a directory, printing the results
+     * @param args the file or directory
+     * @throws IOException if a directory cannot be listed
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: ReplayPlayer <replay file or directory>");
+            System.exit(2);
+        }
+        var path = Path.of(args[0]);
+        var start = System.nanoTime();
+        var results = Files.isDirectory(path) ? verifyAll(path) : List.of(verify(path));
+        var seconds = (System.nanoTime() - start) / 1e9;
+
+        var failed = 0;
+        for (var result : results) {
+            if (!result.isVerified()) {
+                failed++;
+                System.out.println(result);
+            }
+        }
+        System.out.printf("%d replays, %d verified, %d failed in %.2fs%n", results.size(),
+            results.size() - failed, failed, seconds);
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    /**
+     * Verify every replay in a directory, in parallel
+     * @param directory the directory
+     * @return the result for each replay, in file name order
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<ReplayResult> verifyAll(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+        logger.info("Verifying {} replays in {}", files.size(), directory);
+        return files.parallelStream().map(ReplayPlayer::verify).collect(Collectors.toList());
+    }
+
+    /**
+     * Verify a single replay file
+     * @param file the replay
+     * @return the result
+     */
+    public static ReplayResult verify(Path file) {
+        try {
+            return verify(file, ByteBuffer.wrap(Files.readAllBytes(file)));
+        } catch (IOException e) {
+            return new ReplayResult(file, "Unable to read: " + e.getMessage(), 0, -1, 0, 0);
+        }
+    }
+
+    /**
+     * Verify a replay already read into memory
+     * @param file the replay's name, for the result
+     * @param data the replay
+     * @return the result
+     */
+    public static ReplayResult verify(Path file, ByteBuffer data) {
+        GameEngine engine = null;
+        var records = 0;
+        var duration = 0L;
+        try {
+            if (data.getInt() != ReplayFormat.MAGIC) {
+                return new ReplayResult(file, "Not a replay", 0, -1, 0, 0);
+            }
+            var version = data.get();
+            if (version != ReplayFormat.VERSION) {
+                return new ReplayResult(file, "Unknown replay version " + version, 0, -1, 0, 0);
+            }
+            var type = data.get();
+            var seed = data.getLong();
+            var cols = data.get();
+            var rows = data.get();
+            data.getLong();
+
+            engine = new GameEngine(cols, rows, PieceGenerator.create(type, seed));
+            engine.start();
+
+            while (data.hasRemaining()) {
+                var opcode = data.get();
+                duration += getVarint(data);
+                records++;
+
+                String problem = null;
+                switch (opcode) {
+                    case ReplayFormat.PLACE:
+                        var piece = data.get();
+                        var x = data.get() - 1;
+                        var y = data.get() - 1;
+                        var current = engine.getCurrentPiece();
+                        if (engine.isOver()) {
+                            problem = "Played on after the game ended";
+                        } else if (current.getPiece() * GamePiece.ROTATIONS + current.getRotation() != piece) {
+                            problem = "Placed a piece which was not the current piece";
+                        } else if (!engine.playPiece(x, y)) {
+                            problem = "Placed a piece where it does not fit";
+                        }
+                        break;
+                    case ReplayFormat.ROTATE:
+                        engine.rotateCurrentPiece(data.get());
+                        break;
+                    case ReplayFormat.SWAP:
+                        engine.swapCurrentPiece();
+                        break;
+                    case ReplayFormat.TIMER:
+                        if (engine.isOver()) {
+                            problem = "Played on after the game ended";
+                        } else {
+                            engine.timerExpired();
+                        }
+                        break;
+                    case ReplayFormat.CLEAR_ALL:
+                        if (!engine.clearAll()) problem = "Cleared the grid without enough points";
+                        break;
+                    case ReplayFormat.ADD_LIFE:
+                        if (!engine.addLife()) problem = "Bought a life without enough points";
+                        break;
+                    case ReplayFormat.END:
+                        return end(file, engine, data, records, duration);
+                    default:
+                        problem = "Unknown record " + opcode;
+                }
+                if (problem != null) {
+                    return new ReplayResult(file, problem + " at record " + records, records, -1, engine.getScore(),
+                        duration);
+                }
+            }
+            return new ReplayResult(file, "Replay has no end", records, -1, engine.getScore(), duration);
+        } catch (BufferUnderflowException e) {
+            return new ReplayResult(file, "Replay is truncated", records, -1,
+                engine == null ? 0 : engine.getScore(), duration);
+        } catch (IllegalArgumentException e) {
+            return new ReplayResult(file, "Invalid replay: " + e.getMessage(), records, -1, 0, duration);
+        }
+    }
+
+    /**
+     * Check the end of a replay against the state reached by playing it back
+     * @param file the replay
+     * @param engine the engine it was played back on
+     * @param data the replay, positioned after the END record's timestamp
+     * @param records number of records played back
+     * @param duration length of the game in milliseconds
+     * @return the result
+     */
+    private static ReplayResult end(Path file, GameEngine engine, ByteBuffer data, int records, long duration) {
+        var score = (int) getVarint(data);
+        var level = (int) getVarint(data);
+        var lives = (int) getVarint(data);
+
+        String problem = null;
+        if (score != engine.getScore()) {
+            problem = "Recorded score " + score + " but played back " + engine.getScore();
+        } else if (level != engine.getLevel()) {
+            problem = "Recorded level " + level + " but played back " + engine.getLevel();
+        } else if (lives != engine.getLives()) {
+            problem = "Recorded " + lives + " lives but played back " + engine.getLives();
+        } else if (data.hasRemaining()) {
+            problem = "Records after the end";
+        }
+        return new ReplayResult(file, problem, records, score, engine.getScore(), duration);
+    }
+
+    /**
+     * Read a variable length integer
+     * @param data the replay
+     * @return the value
+     */
+    private static long getVarint(ByteBuffer data) {
+        var value = 0L;
+        for (var shift = 0; shift < Long.SIZE; shift += 7) {
+            var b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed number");
+    }
+}
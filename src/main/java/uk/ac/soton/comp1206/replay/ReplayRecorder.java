@@ -0,0 +1,284 @@
+package uk.ac.soton.comp1206.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.PieceGenerator;
+import uk.ac.soton.comp1206.event.EngineListener;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * Records everything the player does in a game to a compact binary replay file, as laid out in ReplayFormat. Together
+ * with the seed of the piece generator this is enough to play the game again exactly.
+ *
+ * Events are encoded into a buffer on the thread running the game. Full buffers, and whatever has been encoded when
+ * flush is called, are handed to a background thread which writes them to the file, so recording never waits on the
+ * disk. A recorder listens to a GameEngine, either directly or through whatever is listening to it.
+ */
+public class ReplayRecorder implements EngineListener {
+
+    private static final Logger logger = LogManager.getLogger(ReplayRecorder.class);
+
+    /**
+     * Size of each buffer of encoded events
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * The thread every recorder writes to disk on, created the first time it is needed
+     */
+    private static class Shared {
+        private static final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+            var thread = new Thread(task, "ReplayWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Buffers which have been written out, ready to be reused
+     */
+    private static final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The file being recorded to
+     */
+    private final Path file;
+
+    /**
+     * The channel writing to the file, only touched on the writer thread
+     */
+    private FileChannel channel;
+
+    /**
+     * The buffer events are currently encoded into
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Time of the last record, from System.nanoTime
+     */
+    private long lastTime;
+
+    /**
+     * Whether the END record has been written
+     */
+    private boolean ended = false;
+
+    /**
+     * Whether writing has failed, after which everything is dropped
+     */
+    private volatile boolean failed = false;
+
+    /**
+     * Start recording a game to a file, replacing anything already there
+     * @param file the file to record to
+     * @param generator the generator dealing the game's pieces
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public ReplayRecorder(Path file, PieceGenerator generator, int cols, int rows) {
+        if (generator.getType() == PieceGenerator.SEQUENCE) {
+            throw new IllegalArgumentException("Cannot record a game dealt from a fixed sequence");
+        }
+        this.file = file;
+        lastTime = System.nanoTime();
+        buffer = acquire();
+        buffer.putInt(ReplayFormat.MAGIC)
+            .put(ReplayFormat.VERSION)
+            .put((byte) generator.getType())
+            .putLong(generator.getSeed())
+            .put((byte) cols)
+            .put((byte) rows)
+            .putLong(System.currentTimeMillis());
+        Shared.writer.execute(this::open);
+    }
+
+    /**
+     * @return the file being recorded to
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return whether writing the file has failed, in which case the replay is incomplete or missing
+     */
+    public boolean hasFailed() {
+        return failed;
+    }
+
+    /**
+     * Run a task on the thread replays are written on, after everything already handed to it
+     * @param task the task
+     */
+    static void execute(Runnable task) {
+        Shared.writer.execute(task);
+    }
+
+    @Override
+    public void piecePlayed(GamePiece piece, int x, int y) {
+        if (!record(ReplayFormat.PLACE)) return;
+        buffer.put((byte) (piece.getPiece() * GamePiece.ROTATIONS + piece.getRotation()))
+            .put((byte) (x + 1))
+            .put((byte) (y + 1));
+    }
+
+    @Override
+    public void pieceRotated(int rotations) {
+        if (!record(ReplayFormat.ROTATE)) return;
+        buffer.put((byte) Math.floorMod(rotations, GamePiece.ROTATIONS));
+    }
+
+    @Override
+    public void piecesSwapped() {
+        record(ReplayFormat.SWAP);
+    }
+
+    @Override
+    public void timerExpired() {
+        record(ReplayFormat.TIMER);
+    }
+
+    @Override
+    public void gridCleared() {
+        record(ReplayFormat.CLEAR_ALL);
+    }
+
+    @Override
+    public void lifeGained(int lives) {
+        record(ReplayFormat.ADD_LIFE);
+    }
+
+    /**
+     * Record the end of the game with its final state, then close the file once everything has been written. Nothing
+     * more is recorded after this.
+     * @param score final score
+     * @param level final level
+     * @param lives final lives
+     */
+    public void end(int score, int level, int lives) {
+        if (ended) return;
+        record(ReplayFormat.END);
+        putVarint(score);
+        putVarint(level);
+        putVarint(lives);
+        ended = true;
+        flush();
+        Shared.writer.execute(this::close);
+    }
+
+    /**
+     * Hand whatever has been recorded so far to the writer thread. Called after each batch of moves.
+     */
+    public void flush() {
+        if (buffer == null || buffer.position() == 0) return;
+        var full = buffer;
+        buffer = ended ? null : acquire();
+        full.flip();
+        Shared.writer.execute(() -> write(full));
+    }
+
+    /**
+     * Start a record, handing the buffer to the writer first if the record might not fit
+     * @param opcode the record's opcode
+     * @return false if the recording has ended, in which case nothing more may be written
+     */
+    private boolean record(byte opcode) {
+        if (ended) return false;
+        if (buffer.remaining() < ReplayFormat.MAX_RECORD_SIZE) flush();
+
+        var now = System.nanoTime();
+        var delta = TimeUnit.NANOSECONDS.toMillis(now - lastTime);
+        //Only move on by whole milliseconds, so rounding never adds up
+        lastTime += TimeUnit.MILLISECONDS.toNanos(delta);
+
+        buffer.put(opcode);
+        putVarint(delta);
+        return true;
+    }
+
+    /**
+     * Write a variable length integer
+     * @param value a value which is not negative
+     */
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Open the file. Called on the writer thread.
+     */
+    private void open() {
+        try {
+            var parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            logger.info("Recording replay to {}", file);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Write a buffer to the file and return it to the pool. Called on the writer thread.
+     * @param data the buffer, ready to read
+     */
+    private void write(ByteBuffer data) {
+        try {
+            while (!failed && data.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+        data.clear();
+        pool.offer(data);
+    }
+
+    /**
+     * Close the file. Called on the writer thread.
+     */
+    private void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+            logger.info("Replay saved to {}", file);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Give up recording after an error, leaving the game to carry on
+     * @param e the error
+     */
+    private void fail(IOException e) {
+        if (!failed) logger.error("Unable to record replay to {}: {}", file, e.toString());
+        failed = true;
+    }
+
+    /**
+     * Take a buffer from the pool, or make a new one if there are none spare
+     * @return an empty buffer
+     */
+    private static ByteBuffer acquire() {
+        var pooled = pool.poll();
+        return pooled != null ? pooled : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+}
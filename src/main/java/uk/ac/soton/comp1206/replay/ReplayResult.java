@@ -0,0 +1,116 @@
+package uk.ac.soton.comp1206.replay;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome of playing back a replay: whether every move was legal and the game ended in the state recorded.
+ */
+public class ReplayResult {
+
+    /**
+     * The replay played
+     */
+    private final Path file;
+
+    /**
+     * Why the replay failed, or null if it was verified
+     */
+    private final String problem;
+
+    /**
+     * Number of records played back
+     */
+    private final int records;
+
+    /**
+     * The score the game was recorded ending with, or -1 if the replay has no end
+     */
+    private final int recordedScore;
+
+    /**
+     * The score reached by playing the replay back
+     */
+    private final int replayedScore;
+
+    /**
+     * Length of the game in milliseconds, from its timestamps
+     */
+    private final long duration;
+
+    /**
+     * Create a new result
+     * @param file the replay played
+     * @param problem why it failed, or null if it was verified
+     * @param records number of records played back
+     * @param recordedScore score recorded at the end, or -1 if there was no end
+     * @param replayedScore score reached by playing back
+     * @param duration length of the game in milliseconds
+     */
+    public ReplayResult(Path file, String problem, int records, int recordedScore, int replayedScore, long duration) {
+        this.file = file;
+        this.problem = problem;
+        this.records = records;
+        this.recordedScore = recordedScore;
+        this.replayedScore = replayedScore;
+        this.duration = duration;
+    }
+
+    /**
+     * @return the replay played
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return true if every move was legal and the game ended exactly as recorded
+     */
+    public boolean isVerified() {
+        return problem == null;
+    }
+
+    /**
+     * @return why the replay failed, or null if it was verified
+     */
+    public String getProblem() {
+        return problem;
+    }
+
+    /**
+     * @return number of records played back
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * @return the score the game was recorded ending with, or -1 if the replay has no end
+     */
+    public int getRecordedScore() {
+        return recordedScore;
+    }
+
+    /**
+     * @return the score reached by playing the replay back
+     */
+    public int getReplayedScore() {
+        return replayedScore;
+    }
+
+    /**
+     * @return length of the game in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Return a string representation of this result
+     * @return string representation
+     */
+    @Override
+    public String toString() {
+        return file + ": " + (problem == null ? "verified, score " + replayedScore : problem) + " (" + records
+            + " records, " + duration / 1000 + "s)";
+    }
+}
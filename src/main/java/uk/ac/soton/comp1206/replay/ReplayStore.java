@@ -0,0 +1,143 @@
+package uk.ac.soton.comp1206.replay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.Game;
+
+/**
+ * Decides whether games are recorded, where their replays go and how many are kept.
+ *
+ * Recording is off unless the tetrecs.replays.record system property is true. Replays are saved to the directory in
+ * tetrecs.replays.dir, "replays" by default, and only the newest tetrecs.replays.keep of them, 50 by default, are kept:
+ * older ones are deleted each time a new recording starts. A score may still point at a replay which has since been
+ * deleted.
+ */
+public class ReplayStore {
+
+    private static final Logger logger = LogManager.getLogger(ReplayStore.class);
+
+    /**
+     * The system properties the store is configured by
+     */
+    public static final String RECORD_PROPERTY = "tetrecs.replays.record";
+    public static final String DIRECTORY_PROPERTY = "tetrecs.replays.dir";
+    public static final String KEEP_PROPERTY = "tetrecs.replays.keep";
+
+    /**
+     * The number of replays kept if none is configured
+     */
+    public static final int DEFAULT_KEEP = 50;
+
+    private static ReplayStore instance;
+
+    /**
+     * Whether games are recorded
+     */
+    private final boolean enabled;
+
+    /**
+     * The directory replays are saved to
+     */
+    private final Path directory;
+
+    /**
+     * The most replays kept
+     */
+    private final int keep;
+
+    /**
+     * Create a store
+     * @param enabled whether games are recorded
+     * @param directory the directory replays are saved to
+     * @param keep the most replays kept, at least 1
+     */
+    public ReplayStore(boolean enabled, Path directory, int keep) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.keep = Math.max(1, keep);
+    }
+
+    /**
+     * Get the store configured by the system properties, creating it the first time
+     * @return the shared store
+     */
+    public static synchronized ReplayStore getInstance() {
+        if (instance == null) {
+            var keep = DEFAULT_KEEP;
+            try {
+                keep = Integer.parseInt(System.getProperty(KEEP_PROPERTY, String.valueOf(DEFAULT_KEEP)));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring {}, not a number: {}", KEEP_PROPERTY, System.getProperty(KEEP_PROPERTY));
+            }
+            instance = new ReplayStore(Boolean.getBoolean(RECORD_PROPERTY),
+                Path.of(System.getProperty(DIRECTORY_PROPERTY, "replays")), keep);
+        }
+        return instance;
+    }
+
+    /**
+     * @return whether games are recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the directory replays are saved to
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Start recording a game if recording is on, then delete the oldest replays beyond the number kept. A recording
+     * which cannot be started, or a directory which cannot be written, is logged and the game carries on unrecorded.
+     * Must be called before the game starts.
+     * @param game the game
+     * @param prefix the start of the replay's file name
+     */
+    public void record(Game game, String prefix) {
+        if (!enabled) return;
+        try {
+            game.recordTo(directory.resolve(prefix + "-" + System.currentTimeMillis() + ReplayPlayer.EXTENSION));
+        } catch (RuntimeException e) {
+            logger.error("Unable to record replay: {}", e.toString());
+            return;
+        }
+        //After the new replay has been opened, on the same thread, so it is counted
+        ReplayRecorder.execute(this::prune);
+    }
+
+    /**
+     * Delete the oldest replays, by file name, beyond the number kept
+     */
+    void prune() {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(ReplayPlayer.EXTENSION))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            logger.warn("Unable to list replays in {}: {}", directory, e.toString());
+            return;
+        }
+
+        for (var file : files.subList(0, Math.max(0, files.size() - keep))) {
+            try {
+                Files.deleteIfExists(file);
+                logger.debug("Deleted old replay {}", file);
+            } catch (IOException e) {
+                logger.warn("Unable to delete old replay {}: {}", file, e.toString());
+            }
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package uk.ac.soton.comp1206.scene;
 
 import javafx.scene.Scene;
-import javafx.scene.paint.Color;
 import uk.ac.soton.comp1206.ui.GamePane;
+import uk.ac.soton.comp1206.ui.ResourceCache;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
 /**
  * A Base Scene used in the game. Handles common functionality between all scenes.
+ *
+ * A scene is built once, then initialised every time it is shown. Scenes which do not hold a game are reusable, so the
+ * GameWindow keeps them once built and shows the same scene again rather than building a new one.
  */
 public abstract class BaseScene {
 
@@ -24,6 +27,11 @@ public abstract class BaseScene {
      */
     protected Scene scene;
 
+    /**
+     * Whether the layout has been built
+     */
+    private boolean built = false;
+
     /**
      * Create a new scene, passing in the GameWindow the scene will be displayed in
      * @param gameWindow the game window
@@ -33,7 +41,7 @@ public abstract class BaseScene {
     }
 
     /**
-     * Initialise this scene. Called after creation
+     * Initialise this scene. Called every time it is shown, after it is built
      */
     public abstract void initialise();
 
@@ -43,13 +51,40 @@ public abstract class BaseScene {
     public abstract void build();
 
     /**
-     * Create a new JavaFX scene using the root contained within this scene
+     * Build the layout if it has not been built already
+     */
+    public void prepare() {
+        if (built) return;
+        build();
+        built = true;
+    }
+
+    /**
+     * Whether this scene can be shown again after it is left, keeping what it built. Scenes holding a game cannot.
+     * @return true if the scene can be reused
+     */
+    public boolean isReusable() {
+        return false;
+    }
+
+    /**
+     * Called when the scene stops being shown, to stop anything which only needs to run while it is visible
+     */
+    public void leave() {
+    }
+
+    /**
+     * Show the root contained within this scene in the window's JavaFX scene. Every scene shares the one JavaFX scene,
+     * so the window keeps its size and the stylesheet is only applied once.
      * @return JavaFX scene
      */
     public Scene setScene() {
-        var previous = gameWindow.getScene();
-        Scene scene = new Scene(root, previous.getWidth(), previous.getHeight(), Color.BLACK);
-        scene.getStylesheets().add(getClass().getResource("/style/game.css").toExternalForm());
+        Scene scene = gameWindow.getScene();
+        var stylesheet = ResourceCache.getInstance().getStylesheet("/style/game.css");
+        if (!scene.getStylesheets().contains(stylesheet)) {
+            scene.getStylesheets().add(stylesheet);
+        }
+        scene.setRoot(root);
         this.scene = scene;
         return scene;
     }
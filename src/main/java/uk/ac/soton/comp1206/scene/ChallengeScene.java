@@ -21,7 +21,6 @@ import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.ui.Multimedia;
-import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBlockCoordinate;
 import uk.ac.soton.comp1206.component.GameBoard;
 import uk.ac.soton.comp1206.component.PieceBoard;
@@ -29,8 +28,10 @@ import uk.ac.soton.comp1206.event.NextPieceListener;
 import uk.ac.soton.comp1206.event.RightClickedListener;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.replay.ReplayStore;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.ResourceCache;
 
 /**
  * The Single Player challenge scene. Holds the UI for the single player challenge mode in the game.
@@ -130,9 +131,8 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
         root.getChildren().add(challengePane);
 
 
-        musicPlayer = new Multimedia();
-        audioPlayer = new Multimedia();
-        musicPlayer.playMusic("game.wav");
+        musicPlayer = Multimedia.getInstance();
+        audioPlayer = Multimedia.getInstance();
 
         // Vbox to hold the main board
         BorderPane mainPane = new BorderPane();
@@ -154,9 +154,9 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
         BorderPane.setMargin(topBar, new Insets(10,0,0,0));
         mainPane.setTop(topBar);
 
-        // The main tetris board
+        // The main tetris board, made of blocks unless single canvas drawing is turned on
         board = new GameBoard(game.getGrid(), gameWindow.getWidth() / 2,
-            gameWindow.getWidth() / 2);
+            gameWindow.getWidth() / 2, Boolean.getBoolean(GameBoard.CANVAS_PROPERTY));
         board.getStyleClass().add("gameBox");
         mainPane.setCenter(board);
 
@@ -166,7 +166,7 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
         currentPieceText.getStyleClass().add("heading");
         nextPieceBoard = new PieceBoard(3, 3,
             gameWindow.getWidth() / 6, gameWindow.getWidth() / 6);
-        nextPieceBoard.blocks[1][1].center();
+        nextPieceBoard.center(1, 1);
         nextPieceBoard.setPadding(new Insets(5,0,0,0));
         nextPieceBoard.getStyleClass().add("sideBox");
 
@@ -195,7 +195,7 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
         livesInfo.getChildren().addAll(livesTitle,livesLabel);
 
         // Image title
-        ImageView titleImage = new ImageView(Multimedia.class.getResource("/images/TetrECS.png").toExternalForm());
+        ImageView titleImage = new ImageView(ResourceCache.getInstance().getImage("/images/TetrECS.png", 75));
         titleImage.setFitHeight(75);
         titleImage.setPreserveRatio(true);
 
@@ -250,25 +250,17 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
 
     /**
      * Swaps the current piece with the one after
-     * @param gameBlock gameBlock passed
      */
-    private void swapPiece(GameBlock gameBlock) {
+    private void swapPiece() {
         game.swapCurrentPiece();
-        nextPieceBoard.clear();
-        tertiaryBoard.clear();
-        nextPiece(game.getCurrentPiece(), game.getFollowingPiece());
         audioPlayer.playAudioFile("pling.wav");
     }
 
     /**
      * Rotate the piece right
-     * @param gameBlock gameBlock passed
      */
-    private void rotatePiece(GameBlock gameBlock) {
+    private void rotatePiece() {
         game.rotateCurrentPiece(1);
-        nextPieceBoard.clear();
-        tertiaryBoard.clear();
-        nextPiece(game.getCurrentPiece(), game.getFollowingPiece());
         audioPlayer.playAudioFile("rotate.wav");
     }
 
@@ -306,11 +298,11 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
     /**
      * Handle when a block is clicked
      *
-     * @param gameBlock the Game Block that was clicked
+     * @param x column of the block that was clicked
+     * @param y row of the block that was clicked
      */
-    private void blockClicked(GameBlock gameBlock) {
-        game.blockClicked(gameBlock);
-        nextPiece(game.getCurrentPiece(), game.getFollowingPiece());
+    private void blockClicked(int x, int y) {
+        game.blockClicked(x, y);
     }
 
     /**
@@ -324,12 +316,16 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
     }
 
     /**
-     * Initialise the scene and start the game
+     * Initialise the scene and start the game. The scene may have been built well before, so the music and the replay
+     * only start here.
      */
     @Override
     public void initialise() {
         logger.info("Initialising Challenge");
-        game.start();
+
+        musicPlayer.playMusic("game.wav");
+        musicPlayer.prefetchMusic("end.wav");
+        ReplayStore.getInstance().record(game, "challenge");
 
         scene.setOnKeyPressed(this::keyboardInputs);
 
@@ -337,24 +333,23 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
         board.setOnRightClicked(this::onRightClicked);
 
         nextPieceBoard.setOnRightClicked(this);
-        nextPieceBoard.setOnBlockClick(this::rotatePiece);
+        nextPieceBoard.setOnBlockClick((x, y) -> rotatePiece());
 
         tertiaryBoard.setOnRightClicked(this);
-        tertiaryBoard.setOnBlockClick(this::swapPiece);
+        tertiaryBoard.setOnBlockClick((x, y) -> swapPiece());
 
         game.setOnGameLoop(this::timer);
         game.registerNextPieceListener(this);
         game.setOnLineCleared(this::fadeLine);
         this.game.scoreProperty().addListener(this::setScore);
 
-        nextPiece(game.getCurrentPiece(), game.getFollowingPiece());
-
         game.setOnGameOver(() -> {
             game.stopTimer();
             audioPlayer.stopAudio();
-            musicPlayer.stopMusic();
             gameWindow.startScores(game);
         });
+
+        game.start();
     }
 
     /**
@@ -384,6 +379,7 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
         tertiaryBoard.clear();
         nextPieceBoard.displayPiece(nextPiece);
         tertiaryBoard.displayPiece(followingPiece);
+        board.setGhostPiece(nextPiece);
     }
 
     /**
@@ -392,7 +388,6 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
     @Override
     public void onRightClicked() {
         game.rotateCurrentPiece(1);
-        nextPiece(game.getCurrentPiece(), game.getFollowingPiece());
     }
 
     /**
@@ -424,41 +419,40 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
             case UP:
                 if (y > 0) {
                     y--;
-                    board.hover(board.getBlock(x, y));
+                    board.hover(x, y);
                 }
                 break;
             case A:
             case LEFT:
                 if (x > 0) {
                     x--;
-                    board.hover(board.getBlock(x, y));
+                    board.hover(x, y);
                 }
                 break;
             case S:
             case DOWN:
                 if (y < game.getRows() - 1) {
                     y++;
-                    board.hover(board.getBlock(x, y));
+                    board.hover(x, y);
                 }
                 break;
             case D:
             case RIGHT:
                 if (x < game.getCols() - 1) {
                     x++;
-                    board.hover(board.getBlock(x, y));
+                    board.hover(x, y);
                 }
                 break;
             case ENTER:
             case X:
-                blockClicked(board.getBlock(x, y));
+                blockClicked(x, y);
                 break;
             case R:
             case SPACE:
-                swapPiece(new GameBlock(board,1,1,1,1));
+                swapPiece();
                 break;
             case ESCAPE:
                 game.stopTimer();
-                musicPlayer.stopMusic();
                 audioPlayer.stopAudio();
                 this.game.stop();
                 gameWindow.startMenu();
@@ -471,7 +465,7 @@ public class ChallengeScene extends BaseScene implements NextPieceListener, Righ
             case Q:
             case Z:
             case OPEN_BRACKET:
-                rotatePiece(new GameBlock(board,1,1,1,1));
+                rotatePiece();
         }
     }
 }
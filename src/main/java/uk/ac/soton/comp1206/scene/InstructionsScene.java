@@ -16,6 +16,7 @@ import uk.ac.soton.comp1206.component.PieceBoard;
 import uk.ac.soton.comp1206.game.GamePiece;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.ResourceCache;
 
 /**
  * The instructions menu of the game. Provides the user info on how to play.
@@ -39,7 +40,7 @@ public class InstructionsScene extends BaseScene {
   @Override
   public void initialise() {
     logger.info("Initialising" + this.getClass().getName());
-    musicPlayer = new Multimedia();
+    musicPlayer = Multimedia.getInstance();
     musicPlayer.playMusic("menu.mp3");
     scene.setOnKeyPressed(this::keyboard);
   }
@@ -96,12 +97,21 @@ public class InstructionsScene extends BaseScene {
         hBox.getChildren().add(pieceBoard);
       }
     }
-    ImageView instructionsImage = new ImageView(Multimedia.class.getResource("/images/Instructions.png").toExternalForm());
+    ImageView instructionsImage = new ImageView(ResourceCache.getInstance().getImage("/images/Instructions.png", 320));
     instructionsImage.setFitHeight(320);
     instructionsImage.setPreserveRatio(true);
     instructionsBox.getChildren().addAll(instructionsImage, pieceBoardsGrid);
   }
 
+  /**
+   * The instructions never change, so are kept and shown again
+   * @return true
+   */
+  @Override
+  public boolean isReusable() {
+    return true;
+  }
+
   /**
    * Takes the user back to the main menu
    * @param event takes in the key pressed
@@ -109,7 +119,6 @@ public class InstructionsScene extends BaseScene {
   public void keyboard(KeyEvent event) {
     switch (event.getCode()) {
       case ESCAPE:
-        musicPlayer.stopMusic();
         gameWindow.startMenu();
     }
   }
@@ -0,0 +1,65 @@
+package uk.ac.soton.comp1206.scene;
+
+import javafx.animation.FadeTransition;
+import javafx.geometry.Pos;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.StackPane;
+import javafx.util.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.ui.GamePane;
+import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.ResourceCache;
+
+/**
+ * The loading screen, shown straight away while the rest of the game loads in the background. Kept to a single image
+ * so it appears as quickly as possible.
+ */
+public class LoadingScene extends BaseScene {
+
+    private static final Logger logger = LogManager.getLogger(LoadingScene.class);
+
+    /**
+     * Create a new loading scene
+     * @param gameWindow the Game Window this will be displayed in
+     */
+    public LoadingScene(GameWindow gameWindow) {
+        super(gameWindow);
+        logger.info("Creating Loading Scene");
+    }
+
+    /**
+     * Build the loading layout
+     */
+    @Override
+    public void build() {
+        logger.info("Building " + this.getClass().getName());
+
+        root = new GamePane(gameWindow.getWidth(), gameWindow.getHeight());
+
+        var loadingPane = new StackPane();
+        loadingPane.setMaxWidth(gameWindow.getWidth());
+        loadingPane.setMaxHeight(gameWindow.getHeight());
+        loadingPane.getStyleClass().add("intro");
+        loadingPane.setAlignment(Pos.CENTER);
+        root.getChildren().add(loadingPane);
+
+        var logo = new ImageView(ResourceCache.getInstance().getImage("/images/ECSGames.png", 200));
+        logo.setFitHeight(200);
+        logo.setPreserveRatio(true);
+        loadingPane.getChildren().add(logo);
+
+        var fade = new FadeTransition(Duration.millis(400), logo);
+        fade.setFromValue(0);
+        fade.setToValue(1);
+        fade.play();
+    }
+
+    /**
+     * Initialise the loading screen
+     */
+    @Override
+    public void initialise() {
+        logger.info("Initialising " + this.getClass().getName());
+    }
+}
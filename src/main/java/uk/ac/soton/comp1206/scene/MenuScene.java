@@ -14,6 +14,7 @@ import uk.ac.soton.comp1206.App;
 import uk.ac.soton.comp1206.ui.Multimedia;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.ResourceCache;
 
 /**
  * The main menu of the game. Provides a gateway to the rest of the game.
@@ -26,6 +27,11 @@ public class MenuScene extends BaseScene {
 
     private Multimedia audioPlayer, musicPlayer;
 
+    /**
+     * Rocks the title from side to side while the menu is shown
+     */
+    private RotateTransition rotater;
+
     /**
      * Create a new menu scene
      * @param gameWindow the Game Window this will be displayed in
@@ -59,7 +65,7 @@ public class MenuScene extends BaseScene {
         mainPane.setTop(topBar);
 
         // Image title
-        ImageView titleImage = new ImageView(Multimedia.class.getResource("/images/TetrECS.png").toExternalForm());
+        ImageView titleImage = new ImageView(ResourceCache.getInstance().getImage("/images/TetrECS.png", 150));
         titleImage.setFitHeight(150);
         titleImage.setPreserveRatio(true);
 
@@ -70,12 +76,11 @@ public class MenuScene extends BaseScene {
         titleBox.getChildren().add(titleImage);
         titleBox.setPadding(new Insets(100,0,0,0));
 
-        RotateTransition rotater = new RotateTransition(new Duration(3000.0), titleImage);
+        rotater = new RotateTransition(new Duration(3000.0), titleImage);
         rotater.setCycleCount(-1);
         rotater.setFromAngle(-5.0);
         rotater.setToAngle(5.0);
         rotater.setAutoReverse(true);
-        rotater.play();
 
         // Menu items
         VBox menuItems = new VBox(10);
@@ -86,7 +91,6 @@ public class MenuScene extends BaseScene {
         play = new Text("Play");
         play.getStyleClass().add("menuItem");
         play.setOnMouseClicked(event -> {
-            musicPlayer.stopMusic();
             this.gameWindow.startChallenge();
         });
 
@@ -94,7 +98,6 @@ public class MenuScene extends BaseScene {
         instructions.getStyleClass().add("menuItem");
         instructions.setOnMouseClicked(event -> {
             logger.info("Instructions button clicked");
-            musicPlayer.stopMusic();
             gameWindow.startInstructions();
         });
 
@@ -116,8 +119,27 @@ public class MenuScene extends BaseScene {
     @Override
     public void initialise() {
         logger.info("Initialising" + this.getClass().getName());
-        musicPlayer = new Multimedia();
+        rotater.playFromStart();
+        musicPlayer = Multimedia.getInstance();
         musicPlayer.playMusic("menu.mp3");
+        musicPlayer.prefetchMusic("game.wav");
+    }
+
+    /**
+     * Stop the title moving while the menu is not shown
+     */
+    @Override
+    public void leave() {
+        rotater.stop();
+    }
+
+    /**
+     * The menu holds no game, so is kept and shown again
+     * @return true
+     */
+    @Override
+    public boolean isReusable() {
+        return true;
     }
 
     /**
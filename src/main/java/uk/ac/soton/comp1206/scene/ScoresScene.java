@@ -1,15 +1,5 @@
 package uk.ac.soton.comp1206.scene;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -27,6 +17,7 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.util.Pair;
 import org.apache.logging.log4j.LogManager;
@@ -34,6 +25,7 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.ui.Multimedia;
 import uk.ac.soton.comp1206.component.ScoresList;
 import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.scores.ScoreRepository;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -52,6 +44,11 @@ public class ScoresScene extends BaseScene {
 
   private boolean getAllScores = true;
 
+  /**
+   * The name results which do not make the top scores are kept under
+   */
+  private static final String DEFAULT_NAME = "Player";
+
   /**
    * Name to enter if high score
    */
@@ -76,6 +73,11 @@ public class ScoresScene extends BaseScene {
    * Local score list
    */
   private ScoresList localScores;
+
+  /**
+   * Where the score ranks among every score ever added
+   */
+  private VBox rankBox;
   private Multimedia audioPlayer, musicPlayer;
 
   /**
@@ -95,10 +97,11 @@ public class ScoresScene extends BaseScene {
   @Override
   public void initialise() {
     logger.info("Initialising" + this.getClass().getName());
-    audioPlayer = new Multimedia();
-    musicPlayer = new Multimedia();
+    audioPlayer = Multimedia.getInstance();
+    musicPlayer = Multimedia.getInstance();
     audioPlayer.playAudioFile("explode.wav");
     musicPlayer.playMusic("end.wav");
+    musicPlayer.prefetchMusic("menu.mp3");
     Platform.runLater(this::revealMethod);
   }
 
@@ -145,10 +148,14 @@ public class ScoresScene extends BaseScene {
     localScores.setAlignment(Pos.CENTER);
     gridPane.getChildren().add(localScores);
 
-    centerBox.getChildren().addAll(highScoreText, gridPane);
+    rankBox = new VBox();
+    rankBox.setAlignment(Pos.CENTER);
+    rankBox.getStyleClass().addAll("scorelist", "leaderboard");
+    rankBox.visibleProperty().bind(ifScore);
 
-    observableLocalScores = FXCollections.observableArrayList(loadScores());
-    observableLocalScores.sort((score1, score2) -> (score2.getValue().compareTo(score1.getValue())));
+    centerBox.getChildren().addAll(highScoreText, gridPane, rankBox);
+
+    observableLocalScores = FXCollections.observableArrayList(ScoreRepository.getInstance().getScores());
     SimpleListProperty<Pair<String, Integer>> localScore = new SimpleListProperty<>(observableLocalScores);
     localScores.nameProperty.bind(name);
     localScores.scores.bind(localScore);
@@ -168,83 +175,6 @@ public class ScoresScene extends BaseScene {
     bottomBar.getChildren().addAll(backText);
   }
 
-  /**
-   * Adds random scores if file does not exist
-   * @return loads scores into an ArrayList
-   */
-  public static ArrayList<Pair<String, Integer>> loadScores() {
-    ArrayList<Pair<String, Integer>> score = new ArrayList<>();
-    File scoresFile = new File("scores.txt");
-
-    if (!scoresFile.exists()) {
-      ArrayList<Pair<String, Integer>> randomScores = new ArrayList<>();
-      randomScores.add(new Pair<>("Rohit", 400));
-      randomScores.add(new Pair<>("Shuruthy", 250));
-      randomScores.add(new Pair<>("Praj", 150));
-      randomScores.add(new Pair<>("Janahan", 50));
-      randomScores.add(new Pair<>("Kian", 50));
-      randomScores.add(new Pair<>("Asher", 50));
-      randomScores.add(new Pair<>("Mitun", 40));
-      randomScores.add(new Pair<>("Mitkumar", 30));
-      randomScores.add(new Pair<>("Reece", 20));
-      randomScores.add(new Pair<>("Daniel", 10));
-      writeScores(randomScores);
-    } else {
-      try {
-        BufferedReader br = new BufferedReader(
-            new InputStreamReader(new FileInputStream(scoresFile)));
-        try {
-          String line;
-          while ((line = br.readLine()) != null) {
-            String[] nameScore = line.split(":");
-            score.add(new Pair<>(nameScore[0], Integer.parseInt(nameScore[1])));
-          }
-          br.close();
-        } catch (IOException e) {
-          e.printStackTrace();
-        }
-      } catch (
-          FileNotFoundException e) {
-        e.printStackTrace();
-        logger.info("File not found");
-      }
-    }
-    return score;
-  }
-
-  /**
-   * Writes scores to file
-   * @param scores writes scores to file - scores.txt
-   */
-  public static void writeScores(List<Pair<String, Integer>> scores) {
-    scores.sort((x, y) -> (y.getValue()).compareTo(x.getValue()));
-    try {
-      if (new File("scores.txt").createNewFile()) {
-        logger.info("File created");
-      }
-    } catch (IOException e) {
-      e.printStackTrace();
-      logger.info("Error in creating file");
-    }
-    try {
-      BufferedWriter scoreWriter = new BufferedWriter(new FileWriter("scores.txt"));
-      int scoresNumber = 0;
-      for (Pair<String, Integer> score : scores) {
-        scoreWriter.write(score.getKey() + ":" + score.getValue() + "\n");
-        scoresNumber++;
-        if (scoresNumber > 9) {
-          break;
-        }
-      }
-      scoreWriter.close();
-      logger.info("Scores saved");
-    } catch (IOException e) {
-      e.printStackTrace();
-      logger.info("Scores save error");
-    }
-  }
-
-
   /**
    * Checks for new high score in the top 10 of all entries
    */
@@ -255,11 +185,9 @@ public class ScoresScene extends BaseScene {
       logger.info("No new score");
       return;
     }
-    int scoreNumber = 0;
-    int finalScoreNumber = scoreNumber;
+    var repository = ScoreRepository.getInstance();
     int currentScore = game.getScore();
     TextField nameField = new TextField();
-    int lowestLocalScore = observableLocalScores.get(observableLocalScores.size() - 1).getValue();
     nameField.setMaxWidth(200);
     nameField.setPromptText("Enter your name");
 
@@ -270,21 +198,15 @@ public class ScoresScene extends BaseScene {
       centerBox.getChildren().remove(1);
 
       if (newHighScore) {
-        observableLocalScores.add(finalScoreNumber, new Pair<>(nameField.getText().replace(":", ""), currentScore));
+        submitScore(name.get(), currentScore);
+        showAround(name.get());
       }
-      writeScores(observableLocalScores);
+      observableLocalScores.setAll(repository.getScores());
       Platform.runLater(this::revealMethod);
       newHighScore = false;
     };
     // Score comparison
-    if (currentScore > lowestLocalScore) {
-      for (Pair<String, Integer> score : observableLocalScores) {
-        if (currentScore > score.getValue()) {
-          newHighScore = true;
-        }
-        scoreNumber++;
-      }
-    }
+    newHighScore = repository.isHighScore(currentScore);
     // New high score prompt
     if (newHighScore) {
       Text newScoreText = new Text("New Score Recorded!");
@@ -309,14 +231,68 @@ public class ScoresScene extends BaseScene {
     }
     // Show past scores if no new high score
     else {
-      audioPlayer.playAudioFile("fail.mp3");
+      audioPlayer.playAudioFile("fail.wav");
       logger.info("High score not achieved");
+      // Every result is kept and ranked, only top scores get a name
+      submitScore(DEFAULT_NAME, currentScore);
+      showRank(currentScore);
       ifScore.set(true);
       localScores.reveal();
     }
   }
 
 
+  /**
+   * Add the finished game's score to the repository, with its seed and replay
+   * @param player the player's name
+   * @param score the score
+   */
+  private void submitScore(String player, int score) {
+    var replay = game.getReplayFile();
+    ScoreRepository.getInstance().addScore(player, score, game.getSeed(), replay == null ? null : replay.toString());
+  }
+
+  /**
+   * Show where a score ranks among every score ever added, once the repository has worked it out. Asked after the
+   * score is submitted, which the repository handles first, so it is ranked among the others.
+   * @param score the score
+   */
+  private void showRank(int score) {
+    ScoreRepository.getInstance().getRank(score)
+        .thenAccept(rank -> Platform.runLater(() -> {
+          Text rankText = new Text("All time rank: #" + rank);
+          rankText.setFill(Color.WHITE);
+          rankBox.getChildren().setAll(rankText);
+        }))
+        .exceptionally(e -> {
+          logger.error("Could not rank score", e);
+          return null;
+        });
+  }
+
+  /**
+   * Show the scores ranked either side of a player's best score ever, once the repository has found them
+   * @param player the player's name
+   */
+  private void showAround(String player) {
+    ScoreRepository.getInstance().getAround(player, 2)
+        .thenAccept(entries -> Platform.runLater(() -> {
+          rankBox.getChildren().clear();
+          for (var entry : entries) {
+            Text line = new Text("#" + entry.rank() + " " + entry.name() + ":" + entry.score());
+            line.setFill(Color.WHITE);
+            if (entry.name().equals(player)) {
+              line.getStyleClass().add("myscore");
+            }
+            rankBox.getChildren().add(line);
+          }
+        }))
+        .exceptionally(e -> {
+          logger.error("Could not find scores around {}", player, e);
+          return null;
+        });
+  }
+
   /**
    * Reveals all scores
    */
@@ -0,0 +1,430 @@
+package uk.ac.soton.comp1206.scores;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Every score ever submitted, ranked, with the rank of a score, the top scores and the scores around a player all
+ * found in O(log n).
+ *
+ * Scores are kept in an AVL tree in which each node also counts the nodes below it, so a rank can be found by walking
+ * from the root. The nodes live in parallel primitive arrays indexed by node, keyed by a single long holding the score
+ * and the order it was submitted in. Higher scores rank first, and equal scores rank in the order they were submitted.
+ * Names are stored once each and referred to by number.
+ *
+ * Entries which are already in rank order, such as those read back from a compacted ScoreLog, are built straight into
+ * a balanced tree without comparing anything. Not thread safe.
+ */
+public class Leaderboard {
+
+    /**
+     * A ranked score
+     * @param rank the rank, from 1 for the highest score
+     * @param name the player's name
+     * @param score the score
+     */
+    public record Entry(int rank, String name, int score) {}
+
+    /**
+     * No node
+     */
+    private static final int NIL = -1;
+
+    /**
+     * The deepest an AVL tree of up to Integer.MAX_VALUE nodes can be, with room to spare
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * The key of each node: the score, flipped so higher scores sort first, in the top 32 bits, and the order it was
+     * submitted in the bottom 32. Compared unsigned.
+     */
+    private long[] keys;
+
+    /**
+     * The children of each node, or NIL
+     */
+    private int[] left, right;
+
+    /**
+     * The number of nodes in the tree under each node, including itself
+     */
+    private int[] sizes;
+
+    /**
+     * The height of the tree under each node
+     */
+    private byte[] heights;
+
+    /**
+     * The name of each node, as an index into the name table
+     */
+    private int[] names;
+
+    /**
+     * Number of entries, and the root node
+     */
+    private int count = 0;
+    private int root = NIL;
+
+    /**
+     * The order the next entry is submitted in
+     */
+    private long sequence = 0;
+
+    /**
+     * Every name, by number, and the number of each name
+     */
+    private final List<String> nameTable = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+
+    /**
+     * The node of each player's best entry, by name number
+     */
+    private int[] best = new int[16];
+
+    /**
+     * Create an empty leaderboard
+     */
+    public Leaderboard() {
+        this(16);
+    }
+
+    /**
+     * Create an empty leaderboard with room for a number of entries before it needs to grow
+     * @param capacity number of entries
+     */
+    public Leaderboard(int capacity) {
+        capacity = Math.max(1, capacity);
+        keys = new long[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        sizes = new int[capacity];
+        heights = new byte[capacity];
+        names = new int[capacity];
+    }
+
+    /**
+     * Submit a score
+     * @param name the player's name
+     * @param score the score
+     * @return the rank it was given
+     */
+    public int add(String name, int score) {
+        if (count == keys.length) grow();
+        var node = count++;
+        keys[node] = key(score, sequence++);
+        left[node] = NIL;
+        right[node] = NIL;
+        sizes[node] = 1;
+        heights[node] = 1;
+        var id = nameId(name);
+        names[node] = id;
+        root = insert(root, node);
+
+        if (best[id] == NIL || Long.compareUnsigned(keys[node], keys[best[id]]) < 0) {
+            best[id] = node;
+        }
+        return countBefore(keys[node]) + 1;
+    }
+
+    /**
+     * Get the number of entries
+     * @return number of entries
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Get the rank a score would be given if it were submitted now, after every equal score
+     * @param score the score
+     * @return the rank, from 1
+     */
+    public int rankOf(int score) {
+        var flipped = flip(score);
+        //Count everything scoring at least as much, which is everything below the next flipped score
+        if (flipped == 0xFFFFFFFFL) return count + 1;
+        return countBefore((flipped + 1) << 32) + 1;
+    }
+
+    /**
+     * Get the rank of a player's best entry
+     * @param name the player's name
+     * @return the rank, from 1, or -1 if they have no entries
+     */
+    public int rankOf(String name) {
+        var id = nameIds.get(name);
+        if (id == null) return -1;
+        return countBefore(keys[best[id]]) + 1;
+    }
+
+    /**
+     * Get the highest scores
+     * @param limit how many to get
+     * @return the entries, highest first
+     */
+    public List<Entry> top(int limit) {
+        return range(1, limit);
+    }
+
+    /**
+     * Get the entries ranked either side of a player's best entry
+     * @param name the player's name
+     * @param radius how many entries to get on each side
+     * @return the entries, highest first, or an empty list if the player has no entries
+     */
+    public List<Entry> around(String name, int radius) {
+        var rank = rankOf(name);
+        if (rank < 0) return List.of();
+        var from = Math.max(1, rank - radius);
+        return range(from, rank + radius - from + 1);
+    }
+
+    /**
+     * Get a run of entries by rank
+     * @param fromRank the first rank to get, from 1
+     * @param limit how many to get
+     * @return the entries, highest first
+     */
+    public List<Entry> range(int fromRank, int limit) {
+        var result = new ArrayList<Entry>(Math.max(0, Math.min(limit, count - fromRank + 1)));
+        if (fromRank < 1 || fromRank > count || limit <= 0) return result;
+
+        //Walk down to the first entry, keeping the nodes still to visit in order on the stack
+        var stack = new int[MAX_DEPTH];
+        var depth = 0;
+        var skip = fromRank - 1;
+        var node = root;
+        while (node != NIL) {
+            var leftSize = size(left[node]);
+            if (skip < leftSize) {
+                stack[depth++] = node;
+                node = left[node];
+            } else if (skip == leftSize) {
+                stack[depth++] = node;
+                break;
+            } else {
+                skip -= leftSize + 1;
+                node = right[node];
+            }
+        }
+
+        //Then carry on in order from there
+        var rank = fromRank;
+        while (depth > 0 && result.size() < limit) {
+            node = stack[--depth];
+            result.add(new Entry(rank++, nameTable.get(names[node]), score(keys[node])));
+            node = right[node];
+            while (node != NIL) {
+                stack[depth++] = node;
+                node = left[node];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create a leaderboard from entries which are already in rank order, in linear time
+     * @param names every name, by number
+     * @param count number of entries
+     * @param scores the score of each entry, by rank from 0
+     * @param nameIds the name number of each entry, by rank from 0
+     * @return the leaderboard
+     * @throws IllegalArgumentException if an entry's name number is not in the names
+     */
+    static Leaderboard ranked(List<String> names, int count, IntUnaryOperator scores, IntUnaryOperator nameIds) {
+        var leaderboard = new Leaderboard(count);
+        for (var name : names) {
+            leaderboard.nameId(name);
+        }
+
+        //Entries are in rank order, so their position is a submission order which keeps equal scores in order
+        for (var node = 0; node < count; node++) {
+            var id = nameIds.applyAsInt(node);
+            if (id < 0 || id >= names.size()) throw new IllegalArgumentException("Unknown name " + id);
+            leaderboard.keys[node] = key(scores.applyAsInt(node), node);
+            leaderboard.names[node] = id;
+            if (leaderboard.best[id] == NIL) leaderboard.best[id] = node;
+        }
+        leaderboard.count = count;
+        leaderboard.sequence = count;
+        leaderboard.root = leaderboard.build(0, count - 1);
+        return leaderboard;
+    }
+
+    /**
+     * Build a balanced tree from nodes which are already in order
+     * @param from the first node
+     * @param to the last node
+     * @return the root of the tree, or NIL if there are no nodes
+     */
+    private int build(int from, int to) {
+        if (from > to) return NIL;
+        var node = (from + to) >>> 1;
+        left[node] = build(from, node - 1);
+        right[node] = build(node + 1, to);
+        update(node);
+        return node;
+    }
+
+    /**
+     * Insert a node into a tree, rebalancing on the way back up
+     * @param tree the root of the tree
+     * @param node the node
+     * @return the new root of the tree
+     */
+    private int insert(int tree, int node) {
+        if (tree == NIL) return node;
+        if (Long.compareUnsigned(keys[node], keys[tree]) < 0) {
+            left[tree] = insert(left[tree], node);
+        } else {
+            right[tree] = insert(right[tree], node);
+        }
+        return balance(tree);
+    }
+
+    /**
+     * Rotate a node whose children differ in height by two back into balance
+     * @param node the node
+     * @return the node now in its place
+     */
+    private int balance(int node) {
+        update(node);
+        var difference = height(left[node]) - height(right[node]);
+        if (difference > 1) {
+            if (height(left[left[node]]) < height(right[left[node]])) left[node] = rotateLeft(left[node]);
+            return rotateRight(node);
+        }
+        if (difference < -1) {
+            if (height(right[right[node]]) < height(left[right[node]])) right[node] = rotateRight(right[node]);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    /**
+     * Rotate a node's left child up into its place
+     * @param node the node
+     * @return the left child, now in its place
+     */
+    private int rotateRight(int node) {
+        var child = left[node];
+        left[node] = right[child];
+        right[child] = node;
+        update(node);
+        update(child);
+        return child;
+    }
+
+    /**
+     * Rotate a node's right child up into its place
+     * @param node the node
+     * @return the right child, now in its place
+     */
+    private int rotateLeft(int node) {
+        var child = right[node];
+        right[node] = left[child];
+        left[child] = node;
+        update(node);
+        update(child);
+        return child;
+    }
+
+    /**
+     * Work out a node's size and height again from its children
+     * @param node the node
+     */
+    private void update(int node) {
+        sizes[node] = 1 + size(left[node]) + size(right[node]);
+        heights[node] = (byte) (1 + Math.max(height(left[node]), height(right[node])));
+    }
+
+    /**
+     * Count the entries whose key is lower than a key, which are the ones ranked before it
+     * @param key the key
+     * @return number of entries
+     */
+    private int countBefore(long key) {
+        var before = 0;
+        var node = root;
+        while (node != NIL) {
+            if (Long.compareUnsigned(keys[node], key) < 0) {
+                before += size(left[node]) + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return before;
+    }
+
+    /**
+     * Get the number of a name, adding it to the table if it is new
+     * @param name the name
+     * @return its number
+     */
+    private int nameId(String name) {
+        var id = nameIds.get(name);
+        if (id != null) return id;
+        id = nameTable.size();
+        nameTable.add(name);
+        nameIds.put(name, id);
+        if (id == best.length) best = Arrays.copyOf(best, id * 2);
+        best[id] = NIL;
+        return id;
+    }
+
+    /**
+     * Make room for more entries
+     */
+    private void grow() {
+        var capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        names = Arrays.copyOf(names, capacity);
+    }
+
+    private int size(int node) {
+        return node == NIL ? 0 : sizes[node];
+    }
+
+    private int height(int node) {
+        return node == NIL ? 0 : heights[node];
+    }
+
+    /**
+     * Flip a score so higher scores give lower values, from 0 for Integer.MAX_VALUE to 2^32 - 1 for Integer.MIN_VALUE
+     * @param score the score
+     * @return the flipped score
+     */
+    private static long flip(int score) {
+        return (long) Integer.MAX_VALUE - score;
+    }
+
+    /**
+     * Make the key of an entry
+     * @param score the score
+     * @param sequence the order it was submitted in
+     * @return the key
+     */
+    private static long key(int score, long sequence) {
+        return flip(score) << 32 | (sequence & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the score back out of a key
+     * @param key the key
+     * @return the score
+     */
+    private static int score(long key) {
+        return (int) (Integer.MAX_VALUE - (key >>> 32));
+    }
+}
@@ -0,0 +1,587 @@
+package uk.ac.soton.comp1206.scores;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Every score ever added, as fixed size records in a memory mapped file. New scores are appended to the end.
+ *
+ * The file starts with a header of HEADER_SIZE bytes:
+ * <pre>
+ *   int  magic     "TSCL"
+ *   int  version
+ *   int  record size
+ *   int  reserved
+ *   long ranked    the records before this are in rank order
+ *   long count     the number of records
+ * </pre>
+ * followed by records of RECORD_SIZE bytes:
+ * <pre>
+ *   int  name      index into the names file
+ *   int  score
+ *   long timestamp when the score was added, in epoch milliseconds
+ *   long seed      the seed of the game's piece generator
+ *   long replay    offset of the replay's path in the replays file, or -1 for none
+ * </pre>
+ *
+ * Names are kept once each in a names file next to the log, one per line, and replay paths in a replays file, each a
+ * short length then its UTF-8 bytes. Only the names are read when the log is opened. Records are written
+ * into the mapped file before the count in the header is moved on, so a record is either all there or not counted.
+ *
+ * Opening reads only the header and names and appending writes only the new record, so neither depends on the size
+ * of the file. New records are left in the order they were added, after the ranked ones. Compacting rewrites the file
+ * in rank order, so it can be ranked again without sorting. Not thread safe.
+ */
+public class ScoreLog implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(ScoreLog.class);
+
+    /**
+     * "TSCL", at the start of every score log
+     */
+    private static final int MAGIC = 0x5453434C;
+
+    /**
+     * The version of the file layout
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header and of each record, in bytes
+     */
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 32;
+
+    /**
+     * Offsets of the header fields
+     */
+    private static final int RANKED = 16;
+    private static final int COUNT = 24;
+
+    /**
+     * How many unranked records there can be before the log should be compacted
+     */
+    public static final int COMPACT_THRESHOLD = 1024;
+
+    /**
+     * The smallest the mapped file grows by, in bytes
+     */
+    private static final int MIN_GROWTH = 64 * 1024;
+
+    /**
+     * A score as stored in the log
+     * @param name the player's name
+     * @param score the score
+     * @param timestamp when it was added, in epoch milliseconds
+     * @param seed the seed of the game's piece generator
+     * @param replay the path of the game's replay, or null for none
+     */
+    public record Score(String name, int score, long timestamp, long seed, String replay) {}
+
+    /**
+     * The log, its names and its replay paths
+     */
+    private final Path file, namesFile, replaysFile;
+
+    /**
+     * The open log, and all of it mapped into memory
+     */
+    private FileChannel channel;
+    private MappedByteBuffer map;
+
+    /**
+     * The replays file, once a replay path has been read or written
+     */
+    private FileChannel replays;
+
+    /**
+     * Every name, by index, and the index of each name
+     */
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+
+    /**
+     * Open a log, creating it if it does not exist
+     * @param file the log
+     * @throws IOException if it cannot be opened or is not a score log
+     */
+    public ScoreLog(Path file) throws IOException {
+        this.file = file;
+        this.namesFile = file.resolveSibling(file.getFileName() + ".names");
+        this.replaysFile = file.resolveSibling(file.getFileName() + ".replays");
+        if (!Files.exists(file)) {
+            //Names already there may belong to a log which was moved away, so keep them
+            if (!Files.exists(namesFile)) writeNames(file, List.of());
+            write(file, null);
+        }
+        readNames();
+        map();
+    }
+
+    /**
+     * Create a log holding scores which are already in rank order, replacing any log there. Used to import scores
+     * kept some other way.
+     * @param file the log
+     * @param ranked the scores, highest first
+     * @return the open log
+     * @throws IOException if it cannot be written
+     */
+    public static ScoreLog create(Path file, List<Score> ranked) throws IOException {
+        var names = new ArrayList<String>();
+        var ids = new HashMap<String, Integer>();
+        var replays = new ByteArrayOutputStream();
+        var records = ByteBuffer.allocate(ranked.size() * RECORD_SIZE);
+        for (var score : ranked) {
+            var name = clean(score.name());
+            var id = ids.computeIfAbsent(name, n -> {
+                names.add(n);
+                return names.size() - 1;
+            });
+            var pointer = -1L;
+            if (score.replay() != null) {
+                pointer = replays.size();
+                replays.writeBytes(encodeReplay(score.replay()).array());
+            }
+            putRecord(records, id, score.score(), score.timestamp(), score.seed(), pointer);
+        }
+        records.flip();
+
+        //The log goes last, so a crash before it is moved into place leaves no log and the import runs again
+        replace(file.resolveSibling(file.getFileName() + ".replays"), ByteBuffer.wrap(replays.toByteArray()));
+        writeNames(file, names);
+        write(file, records);
+        return new ScoreLog(file);
+    }
+
+    /**
+     * Get the number of scores
+     * @return number of records
+     */
+    public int size() {
+        return (int) map.getLong(COUNT);
+    }
+
+    /**
+     * Get the number of scores at the start of the log which are in rank order
+     * @return number of ranked records
+     */
+    public int ranked() {
+        return (int) map.getLong(RANKED);
+    }
+
+    /**
+     * Check whether enough scores have been added since the last compaction to compact again
+     * @return true if the log should be compacted
+     */
+    public boolean needsCompaction() {
+        return size() - ranked() >= COMPACT_THRESHOLD;
+    }
+
+    /**
+     * Add a score to the end of the log
+     * @param name the player's name
+     * @param score the score
+     * @param timestamp when it was added, in epoch milliseconds
+     * @param seed the seed of the game's piece generator
+     * @param replay the path of the game's replay, or null for none
+     * @throws IOException if it cannot be written
+     */
+    public void append(String name, int score, long timestamp, long seed, String replay) throws IOException {
+        var id = nameId(name);
+        var pointer = -1L;
+        if (replay != null) pointer = appendReplay(replays(), replay);
+
+        var count = size();
+        var offset = HEADER_SIZE + (long) count * RECORD_SIZE;
+        if (offset + RECORD_SIZE > map.capacity()) grow(offset + RECORD_SIZE);
+        putRecord(map.slice((int) offset, RECORD_SIZE), id, score, timestamp, seed, pointer);
+        //Only count the record once it has all been written
+        map.putLong(COUNT, count + 1);
+    }
+
+    /**
+     * Get the score of a record
+     * @param index the record
+     * @return the score
+     */
+    public int score(int index) {
+        return map.getInt(HEADER_SIZE + index * RECORD_SIZE + 4);
+    }
+
+    /**
+     * Get the name index of a record
+     * @param index the record
+     * @return index into getNames
+     */
+    public int nameId(int index) {
+        return map.getInt(HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    /**
+     * Get every name, by index
+     * @return the names, which cannot be changed
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Read a whole record
+     * @param index the record
+     * @return the score
+     * @throws IOException if its replay path cannot be read
+     */
+    public Score get(int index) throws IOException {
+        var offset = HEADER_SIZE + index * RECORD_SIZE;
+        var pointer = map.getLong(offset + 24);
+        return new Score(names.get(map.getInt(offset)), map.getInt(offset + 4), map.getLong(offset + 8),
+            map.getLong(offset + 16), pointer < 0 ? null : readReplay(pointer));
+    }
+
+    /**
+     * Rewrite the log with every record in rank order. The ranked records are merged with the newer ones, which are
+     * sorted first, so this is O(n) plus sorting what was added since the last compaction. The new log is written to
+     * a temporary file and moved over the old one, so a crash part way through leaves the old log as it was, and a
+     * move which fails leaves the old log mapped and taking appends.
+     * @throws IOException if the log cannot be rewritten
+     */
+    public void compact() throws IOException {
+        var count = size();
+        var ranked = ranked();
+        if (ranked == count) return;
+        var start = System.nanoTime();
+
+        //Sort the newer records highest first, keeping the order they were added in for equal scores
+        var newer = new long[count - ranked];
+        for (var i = ranked; i < count; i++) {
+            var flipped = (long) Integer.MAX_VALUE - score(i);
+            newer[i - ranked] = flipped << 32 | i;
+        }
+        for (var i = 0; i < newer.length; i++) newer[i] ^= Long.MIN_VALUE;
+        Arrays.sort(newer);
+
+        var records = ByteBuffer.allocate(count * RECORD_SIZE);
+        var next = 0;
+        for (var i = 0; i < ranked || next < newer.length; ) {
+            int index;
+            if (next == newer.length) {
+                index = i++;
+            } else {
+                var candidate = (int) ((newer[next] ^ Long.MIN_VALUE) & 0xFFFFFFFFL);
+                //Older records rank first among equal scores
+                if (i < ranked && score(i) >= score(candidate)) {
+                    index = i++;
+                } else {
+                    index = candidate;
+                    next++;
+                }
+            }
+            records.put(map.slice(HEADER_SIZE + index * RECORD_SIZE, RECORD_SIZE));
+        }
+        records.flip();
+
+        //Write the new log before letting go of the old one, which some systems will not replace while it is mapped
+        var temp = writeTemp(file, header(count), records);
+        map = null;
+        channel.close();
+        try {
+            moveIntoPlace(temp, file);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            //The new log if it was moved into place, otherwise the old one again
+            map();
+        }
+        logger.info("Compacted {} scores in {}ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Force everything appended so far to disk
+     * @throws IOException if it cannot be forced
+     */
+    public void force() throws IOException {
+        map.force();
+        if (replays != null) replays.force(false);
+    }
+
+    /**
+     * Close the log, forcing it to disk first
+     * @throws IOException if it cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+        if (replays != null) replays.close();
+    }
+
+    /**
+     * Open the log and map all of it, checking its header
+     * @throws IOException if it cannot be opened or is not a score log
+     */
+    private void map() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) throw new IOException("Not a score log: " + file);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (map.getInt(0) != MAGIC || map.getInt(8) != RECORD_SIZE) {
+            throw new IOException("Not a score log: " + file);
+        }
+        if (map.getInt(4) != VERSION) throw new IOException("Unknown score log version: " + file);
+
+        //Recover from a count which claims more than the file holds
+        var fits = (map.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        if (size() > fits || ranked() > size()) {
+            logger.warn("Score log {} was cut short, keeping the {} scores it holds", file, fits);
+            map.putLong(COUNT, fits);
+            map.putLong(RANKED, Math.min(ranked(), fits));
+        }
+    }
+
+    /**
+     * Make the mapped file bigger, doubling it so growing takes constant time on average
+     * @param needed the smallest size it must be
+     * @throws IOException if it cannot be grown
+     */
+    private void grow(long needed) throws IOException {
+        var capacity = Math.max(needed, Math.max(map.capacity() * 2L, MIN_GROWTH));
+        if (capacity > Integer.MAX_VALUE) throw new IOException("Score log is full: " + file);
+        map.force();
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Read the names file, dropping a last line which was only partly written
+     * @throws IOException if it cannot be read
+     */
+    private void readNames() throws IOException {
+        if (!Files.exists(namesFile)) return;
+        var bytes = Files.readAllBytes(namesFile);
+        var start = 0;
+        for (var i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            var name = new String(bytes, start, i - start, StandardCharsets.UTF_8);
+            nameIds.put(name, names.size());
+            names.add(name);
+            start = i + 1;
+        }
+        if (start < bytes.length) {
+            logger.warn("Dropping a partly written name from {}", namesFile);
+            try (var names = FileChannel.open(namesFile, StandardOpenOption.WRITE)) {
+                names.truncate(start);
+            }
+        }
+    }
+
+    /**
+     * Get the index of a name, adding it to the names file if it is new
+     * @param name the name
+     * @return its index
+     * @throws IOException if it cannot be added
+     */
+    private int nameId(String name) throws IOException {
+        name = clean(name);
+        var id = nameIds.get(name);
+        if (id != null) return id;
+        try (var out = FileChannel.open(namesFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND)) {
+            var buffer = ByteBuffer.wrap((name + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        id = names.size();
+        names.add(name);
+        nameIds.put(name, id);
+        return id;
+    }
+
+    /**
+     * Read a replay path
+     * @param pointer its offset in the replays file
+     * @return the path
+     * @throws IOException if it cannot be read
+     */
+    private String readReplay(long pointer) throws IOException {
+        var length = ByteBuffer.allocate(Short.BYTES);
+        replays().read(length, pointer);
+        var bytes = ByteBuffer.allocate(Short.toUnsignedInt(length.flip().getShort()));
+        replays().read(bytes, pointer + Short.BYTES);
+        return new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the replays file, opening it the first time
+     * @return the open replays file
+     * @throws IOException if it cannot be opened
+     */
+    private FileChannel replays() throws IOException {
+        if (replays == null) {
+            replays = FileChannel.open(replaysFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        }
+        return replays;
+    }
+
+    /**
+     * Add a replay path to the end of the replays file
+     * @param replays the open replays file
+     * @param path the path
+     * @return its offset in the file
+     * @throws IOException if it cannot be written
+     */
+    private static long appendReplay(FileChannel replays, String path) throws IOException {
+        var pointer = replays.size();
+        var buffer = encodeReplay(path);
+        while (buffer.hasRemaining()) {
+            replays.write(buffer, pointer + buffer.position());
+        }
+        return pointer;
+    }
+
+    /**
+     * Encode a replay path as it is stored in the replays file
+     * @param path the path
+     * @return its length then its UTF-8 bytes, ready to read
+     */
+    private static ByteBuffer encodeReplay(String path) {
+        var bytes = path.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(Short.BYTES + bytes.length).putShort((short) bytes.length).put(bytes).flip();
+    }
+
+    /**
+     * Write a record
+     * @param buffer where to write it
+     */
+    private static void putRecord(ByteBuffer buffer, int name, int score, long timestamp, long seed, long replay) {
+        buffer.putInt(name).putInt(score).putLong(timestamp).putLong(seed).putLong(replay);
+    }
+
+    /**
+     * Write a whole log, all in rank order, in place of the old one
+     * @param file the log
+     * @param records the records, or null for none
+     * @throws IOException if it cannot be written
+     */
+    private static void write(Path file, ByteBuffer records) throws IOException {
+        var count = records == null ? 0 : records.remaining() / RECORD_SIZE;
+        replace(file, header(count), records == null ? ByteBuffer.allocate(0) : records);
+    }
+
+    /**
+     * Create the header of a log with every record in rank order
+     * @param count number of records
+     * @return the header, ready to write
+     */
+    private static ByteBuffer header(long count) {
+        return ByteBuffer.allocate(HEADER_SIZE)
+            .putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0)
+            .putLong(count).putLong(count)
+            .flip();
+    }
+
+    /**
+     * Write a names file, one name per line, in place of the old one
+     * @param file the log the names belong to
+     * @param names the names, by index
+     * @throws IOException if it cannot be written
+     */
+    private static void writeNames(Path file, List<String> names) throws IOException {
+        var text = new StringBuilder();
+        for (var name : names) {
+            text.append(name).append('\n');
+        }
+        replace(file.resolveSibling(file.getFileName() + ".names"),
+            ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Replace a file in one step: write a temporary file, force it to disk, move it over the old file, then force the
+     * directory so the move itself survives a power cut. A crash part way through leaves the old file as it was.
+     * @param target the file to replace
+     * @param contents what to write, in order
+     * @throws IOException if it cannot be written or moved
+     */
+    private static void replace(Path target, ByteBuffer... contents) throws IOException {
+        moveIntoPlace(writeTemp(target, contents), target);
+    }
+
+    /**
+     * Write the temporary file which will replace a file, forcing it to disk
+     * @param target the file to be replaced
+     * @param contents what to write, in order
+     * @return the temporary file
+     * @throws IOException if it cannot be written
+     */
+    private static Path writeTemp(Path target, ByteBuffer... contents) throws IOException {
+        var temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (var out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (var buffer : contents) {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            out.force(true);
+        }
+        return temp;
+    }
+
+    /**
+     * Move a temporary file over the file it replaces, then force the directory
+     * @param temp the temporary file
+     * @param target the file to replace
+     * @throws IOException if it cannot be moved
+     */
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target);
+    }
+
+    /**
+     * Force the directory holding a file to disk, so a move into it is not lost in a crash. Not every system allows a
+     * directory to be opened, in which case this does nothing.
+     * @param file the file
+     */
+    private static void syncDirectory(Path file) {
+        var directory = file.toAbsolutePath().getParent();
+        if (directory == null) return;
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Could not sync {}", directory);
+        }
+    }
+
+    /**
+     * Make a name safe to store as one line
+     * @param name the name
+     * @return the name without line breaks
+     */
+    private static String clean(String name) {
+        return name.replace('\n', ' ').replace('\r', ' ');
+    }
+}
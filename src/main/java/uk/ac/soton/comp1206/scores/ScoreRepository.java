@@ -0,0 +1,396 @@
+package uk.ac.soton.comp1206.scores;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javafx.util.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps the local high scores. Every score ever added is stored in a ScoreLog, and the top scores are held in memory.
+ *
+ * The copy in memory is the one that counts: reading the top scores never touches the disk, and adding a score
+ * updates them at once, then appends it to the log on a background thread. Once enough scores have been appended the
+ * log is compacted on the same thread.
+ *
+ * Opening only reads the first MAX_SCORES ranked scores and the ones added since the log was last compacted, so the
+ * top scores are ready however long the history is. Every score is then put in a Leaderboard, which answers ranks and
+ * pages of the whole history. Those queries run on the background thread too and are answered through futures, so
+ * they never hold up the JavaFX thread. The scores.txt kept by earlier versions is imported the first time the log is
+ * opened.
+ */
+public class ScoreRepository {
+
+    private static final Logger logger = LogManager.getLogger(ScoreRepository.class);
+
+    /**
+     * The most scores kept
+     */
+    public static final int MAX_SCORES = 10;
+
+    /**
+     * The log the shared repository stores to, in the working directory
+     */
+    public static final Path DEFAULT_FILE = Path.of("scores.log");
+
+    /**
+     * The file scores were kept in before, in the same directory as the log, imported if there is no log yet
+     */
+    public static final String TEXT_FILE = "scores.txt";
+
+    /**
+     * Highest first. Sorting is stable, so equal scores keep their order.
+     */
+    private static final Comparator<Pair<String, Integer>> ORDER =
+        Comparator.comparing(Pair<String, Integer>::getValue).reversed();
+
+    private static ScoreRepository instance;
+
+    /**
+     * The log
+     */
+    private final Path file;
+
+    /**
+     * Every score ever added, or null if the log could not be opened. Only used on the io thread.
+     */
+    private ScoreLog log;
+
+    /**
+     * Every score ever added, ranked. Only used on the io thread.
+     */
+    private Leaderboard leaderboard = new Leaderboard();
+
+    /**
+     * The thread the log is read and written on
+     */
+    private final ExecutorService io = Executors.newSingleThreadExecutor(task -> {
+        var thread = new Thread(task, "ScoreWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Completes once the top scores have been read
+     */
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+    /**
+     * The scores, highest first. Never changed once set, only replaced.
+     */
+    private volatile List<Pair<String, Integer>> scores = List.of();
+
+    /**
+     * Create a repository storing to a log, and start reading it in the background
+     * @param file the log
+     */
+    public ScoreRepository(Path file) {
+        this.file = file;
+        io.execute(this::load);
+    }
+
+    /**
+     * Get the shared repository for scores.log, creating it and starting to read the log the first time
+     * @return the shared repository
+     */
+    public static synchronized ScoreRepository getInstance() {
+        if (instance == null) {
+            instance = new ScoreRepository(DEFAULT_FILE);
+        }
+        return instance;
+    }
+
+    /**
+     * Get the scores, highest first. Only waits if the log is still being read for the first time.
+     * @return the scores, which cannot be changed
+     */
+    public List<Pair<String, Integer>> getScores() {
+        loaded.join();
+        return scores;
+    }
+
+    /**
+     * Get the lowest score kept, which a new score must beat once the list is full
+     * @return the lowest score, or 0 if there are none
+     */
+    public int getLowestScore() {
+        var current = getScores();
+        return current.isEmpty() ? 0 : current.get(current.size() - 1).getValue();
+    }
+
+    /**
+     * Check whether a score would make it into the top scores
+     * @param score the score
+     * @return true if it beats the lowest score kept, or there is room for more
+     */
+    public boolean isHighScore(int score) {
+        return getScores().size() < MAX_SCORES || score > getLowestScore();
+    }
+
+    /**
+     * Get the rank a score would be given among every score ever added. Answered on the io thread once the
+     * leaderboard has been built and every score added so far is in it, so it never blocks the caller.
+     * @param score the score
+     * @return completes with the rank, from 1
+     */
+    public CompletableFuture<Integer> getRank(int score) {
+        return CompletableFuture.supplyAsync(() -> leaderboard.rankOf(score), io);
+    }
+
+    /**
+     * Get the highest scores ever added, on the io thread like getRank
+     * @param limit how many to get
+     * @return completes with the entries, highest first
+     */
+    public CompletableFuture<List<Leaderboard.Entry>> getTop(int limit) {
+        return CompletableFuture.supplyAsync(() -> leaderboard.top(limit), io);
+    }
+
+    /**
+     * Get the scores ranked either side of a player's best score ever, on the io thread like getRank
+     * @param name the player's name
+     * @param radius how many to get on each side
+     * @return completes with the entries, highest first, or an empty list if the player has no scores
+     */
+    public CompletableFuture<List<Leaderboard.Entry>> getAround(String name, int radius) {
+        return CompletableFuture.supplyAsync(() -> leaderboard.around(name, radius), io);
+    }
+
+    /**
+     * Add a score, keeping the highest MAX_SCORES, and append it to the log in the background
+     * @param name the player's name
+     * @param score their score
+     * @param seed the seed of the game's piece generator
+     * @param replay the path of the game's replay, or null if it was not recorded
+     */
+    public void addScore(String name, int score, long seed, String replay) {
+        var updated = new ArrayList<>(getScores());
+        updated.add(new Pair<>(name, score));
+        scores = top(updated);
+
+        var timestamp = System.currentTimeMillis();
+        io.execute(() -> append(name, score, timestamp, seed, replay));
+    }
+
+    /**
+     * Wait for every score added so far to reach the disk
+     * @param timeout the longest to wait, in milliseconds
+     * @return true if everything was saved in time
+     */
+    public boolean flush(long timeout) {
+        try {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    if (log != null) log.force();
+                } catch (IOException e) {
+                    logger.error("Could not force scores to {}", file, e);
+                }
+            }, io).get(timeout, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            logger.warn("Scores still saving after {}ms", timeout);
+            return false;
+        } catch (Exception e) {
+            logger.error("Could not wait for scores to save", e);
+            return false;
+        }
+    }
+
+    /**
+     * Append a score to the log and the leaderboard, compacting the log if it is due
+     */
+    private void append(String name, int score, long timestamp, long seed, String replay) {
+        leaderboard.add(name, score);
+        if (log == null) {
+            logger.warn("Not storing score {} for {}, the log could not be opened", score, name);
+            return;
+        }
+        try {
+            log.append(name, score, timestamp, seed, replay);
+            if (log.needsCompaction()) log.compact();
+        } catch (IOException e) {
+            logger.error("Could not store score to {}", file, e);
+        }
+    }
+
+    /**
+     * Open the log, importing older scores if there is no log yet, read the top scores, then build the leaderboard. A
+     * log which cannot be read is moved aside and a new one started, so new scores are still kept.
+     */
+    private void load() {
+        var start = System.nanoTime();
+        try {
+            try {
+                open();
+            } catch (IOException | RuntimeException e) {
+                if (!Files.exists(file)) throw e;
+                logger.error("Could not read scores from {}, starting a new log", file, e);
+                moveAside();
+                open();
+            }
+            logger.info("Loaded {} of {} scores in {}us", scores.size(), log.size(),
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not create a score log at {}, scores will not be kept", file, e);
+            log = null;
+            scores = top(defaults());
+        }
+        loaded.complete(null);
+
+        try {
+            buildLeaderboard();
+        } catch (RuntimeException e) {
+            logger.error("Could not rank the scores in {}", file, e);
+        }
+    }
+
+    /**
+     * Open the log, or import one if there is none, compact it if it is due and read the top scores
+     * @throws IOException if it cannot be opened or created
+     */
+    private void open() throws IOException {
+        log = Files.exists(file) ? new ScoreLog(file) : importScores();
+        if (log.needsCompaction()) log.compact();
+
+        //The top scores are among the first ranked scores and the ones added since
+        var read = new ArrayList<Pair<String, Integer>>();
+        var names = log.getNames();
+        for (var i = 0; i < Math.min(MAX_SCORES, log.ranked()); i++) {
+            read.add(new Pair<>(names.get(log.nameId(i)), log.score(i)));
+        }
+        for (var i = log.ranked(); i < log.size(); i++) {
+            read.add(new Pair<>(names.get(log.nameId(i)), log.score(i)));
+        }
+        scores = top(read);
+    }
+
+    /**
+     * Move a log which cannot be read, with its names and replays, to files named .corrupt-(time), where they are
+     * kept for someone to look at rather than failing again at every start
+     * @throws IOException if the log cannot be moved
+     */
+    private void moveAside() throws IOException {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Could not close {}", file);
+            }
+            log = null;
+        }
+        var suffix = ".corrupt-" + System.currentTimeMillis();
+        for (var extension : List.of(".names", ".replays", "")) {
+            var from = file.resolveSibling(file.getFileName() + extension);
+            if (!Files.exists(from)) continue;
+            var to = file.resolveSibling(file.getFileName() + extension + suffix);
+            Files.move(from, to);
+            logger.warn("Moved {} to {}", from, to);
+        }
+    }
+
+    /**
+     * Put every score in the log into the leaderboard: the ranked ones all at once, then the ones added since
+     */
+    private void buildLeaderboard() {
+        if (log == null) return;
+        var start = System.nanoTime();
+        var built = Leaderboard.ranked(log.getNames(), log.ranked(), log::score, log::nameId);
+        var names = log.getNames();
+        for (var i = log.ranked(); i < log.size(); i++) {
+            built.add(names.get(log.nameId(i)), log.score(i));
+        }
+        leaderboard = built;
+        logger.info("Ranked {} scores in {}ms", built.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Create the log from the scores.txt top scores kept by an earlier version, or from the defaults if there are none
+     * @return the new log
+     * @throws IOException if it cannot be created
+     */
+    private ScoreLog importScores() throws IOException {
+        var textFile = file.resolveSibling(TEXT_FILE);
+        var read = new ArrayList<Pair<String, Integer>>();
+        if (Files.exists(textFile)) {
+            var lines = Files.readAllLines(textFile, StandardCharsets.UTF_8);
+            for (var number = 0; number < lines.size(); number++) {
+                var line = lines.get(number).strip();
+                if (line.isEmpty()) continue;
+                var score = parse(line);
+                if (score == null) {
+                    logger.warn("Skipping bad line {} of {}: {}", number + 1, textFile, line);
+                } else {
+                    read.add(score);
+                }
+            }
+            logger.info("Importing {} scores from {}", read.size(), textFile);
+        }
+        if (read.isEmpty()) {
+            logger.info("No scores yet, using the defaults");
+            read.addAll(defaults());
+        }
+
+        read.sort(ORDER);
+        var now = System.currentTimeMillis();
+        var imported = new ArrayList<ScoreLog.Score>();
+        for (var score : read) {
+            imported.add(new ScoreLog.Score(score.getKey(), score.getValue(), now, 0, null));
+        }
+        return ScoreLog.create(file, imported);
+    }
+
+    /**
+     * Sort and trim scores to the top MAX_SCORES
+     * @param read the scores, in any order
+     * @return the top scores, which cannot be changed
+     */
+    private static List<Pair<String, Integer>> top(List<Pair<String, Integer>> read) {
+        var sorted = new ArrayList<>(read);
+        sorted.sort(ORDER);
+        return List.copyOf(sorted.subList(0, Math.min(MAX_SCORES, sorted.size())));
+    }
+
+    /**
+     * Read one name:score line. The score follows the last colon.
+     * @param line the line
+     * @return the score, or null if the line is not a valid score
+     */
+    static Pair<String, Integer> parse(String line) {
+        var colon = line.lastIndexOf(':');
+        if (colon <= 0 || colon == line.length() - 1) return null;
+        try {
+            return new Pair<>(line.substring(0, colon).strip(), Integer.parseInt(line.substring(colon + 1).strip()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The scores shown before anyone has played
+     * @return the default scores
+     */
+    private static List<Pair<String, Integer>> defaults() {
+        return List.of(
+            new Pair<>("Rohit", 400),
+            new Pair<>("Shuruthy", 250),
+            new Pair<>("Praj", 150),
+            new Pair<>("Janahan", 50),
+            new Pair<>("Kian", 50),
+            new Pair<>("Asher", 50),
+            new Pair<>("Mitun", 40),
+            new Pair<>("Mitkumar", 30),
+            new Pair<>("Reece", 20),
+            new Pair<>("Daniel", 10)
+        );
+    }
+}
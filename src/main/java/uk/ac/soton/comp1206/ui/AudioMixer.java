@@ -0,0 +1,274 @@
+package uk.ac.soton.comp1206.ui;
+
+import java.util.concurrent.TimeUnit;
+import javafx.animation.PauseTransition;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.scene.media.AudioClip;
+import javafx.util.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.MixerListener;
+
+/**
+ * Plays sound effects from a SoundBank through a fixed pool of voices, so however fast sounds are triggered, no more
+ * than MAX_VOICES play at once.
+ *
+ * When every voice is busy, a new sound takes over the voice playing the oldest sound of the lowest priority, as long
+ * as that is no more important than the new sound. Otherwise the new sound is dropped. While any sound plays, the
+ * music volume is lowered, and it is raised again once the last sound has finished.
+ *
+ * Voices are kept in arrays and reused, so playing a sound allocates nothing. Only used on the JavaFX thread.
+ */
+public class AudioMixer {
+
+  private static final Logger logger = LogManager.getLogger(AudioMixer.class);
+
+  /**
+   * The most sounds which can play at once
+   */
+  public static final int MAX_VOICES = 8;
+
+  /**
+   * The music volume while no sound is playing, and while sounds are playing
+   */
+  private static final double MUSIC_VOLUME = 1.0;
+  private static final double DUCKED_VOLUME = 0.4;
+
+  /**
+   * Where the sounds come from
+   */
+  private final SoundBank sounds;
+
+  /**
+   * The clip each voice is playing, or null if the voice is free
+   */
+  private final AudioClip[] clips = new AudioClip[MAX_VOICES];
+
+  /**
+   * The priority of the sound on each voice
+   */
+  private final int[] priorities = new int[MAX_VOICES];
+
+  /**
+   * When each voice started and will finish playing, from System.nanoTime
+   */
+  private final long[] starts = new long[MAX_VOICES];
+  private final long[] ends = new long[MAX_VOICES];
+
+  /**
+   * Totals of sounds played, cut short and dropped
+   */
+  private long played = 0;
+  private long stolen = 0;
+  private long dropped = 0;
+
+  /**
+   * When the last sound playing will finish, from System.nanoTime
+   */
+  private long lastEnd = 0;
+
+  /**
+   * The volume the music should play at
+   */
+  private final DoubleProperty musicVolume = new SimpleDoubleProperty(MUSIC_VOLUME);
+
+  /**
+   * Raises the music again once the last sound has finished
+   */
+  private final PauseTransition unduck = new PauseTransition();
+
+  private MixerListener mixerListener;
+
+  /**
+   * Create a new mixer playing sounds from a bank
+   * @param sounds the loaded sounds
+   */
+  public AudioMixer(SoundBank sounds) {
+    this.sounds = sounds;
+    unduck.setOnFinished(e -> {
+      if (System.nanoTime() - lastEnd >= 0) {
+        musicVolume.set(MUSIC_VOLUME);
+      } else {
+        duckUntil(lastEnd);
+      }
+    });
+  }
+
+  /**
+   * Play a sound, taking over a less important voice if every voice is busy
+   * @param id the sound's file name
+   * @return true if it was played, false if it was dropped or there is no such sound
+   */
+  public boolean play(String id) {
+    var clip = sounds.getClip(id);
+    if (clip == null) {
+      logger.error("Unknown sound {}", id);
+      return false;
+    }
+    var priority = sounds.getCategory(id).ordinal();
+    var now = System.nanoTime();
+
+    var voice = freeVoice(now);
+    if (voice < 0) {
+      voice = victim(priority);
+      if (voice < 0) {
+        dropped++;
+        logger.debug("Dropped sound {}", id);
+        fireUpdated(now);
+        return false;
+      }
+      //Stopping a clip stops every instance of it, so free every voice playing the same clip
+      var victim = clips[voice];
+      victim.stop();
+      for (var i = 0; i < MAX_VOICES; i++) {
+        if (clips[i] == victim) {
+          clips[i] = null;
+          stolen++;
+        }
+      }
+    }
+
+    clip.play();
+    clips[voice] = clip;
+    priorities[voice] = priority;
+    starts[voice] = now;
+    ends[voice] = now + sounds.getLength(id);
+    played++;
+
+    if (ends[voice] - lastEnd > 0 || musicVolume.get() == MUSIC_VOLUME) {
+      lastEnd = ends[voice];
+      duckUntil(lastEnd);
+    }
+    fireUpdated(now);
+    return true;
+  }
+
+  /**
+   * Find a voice which is not playing anything, freeing the ones whose sound has finished
+   * @param now the current time
+   * @return the voice, or -1 if every voice is busy
+   */
+  private int freeVoice(long now) {
+    var free = -1;
+    for (var i = 0; i < MAX_VOICES; i++) {
+      if (clips[i] != null && now - ends[i] >= 0) clips[i] = null;
+      if (clips[i] == null && free < 0) free = i;
+    }
+    return free;
+  }
+
+  /**
+   * Find the voice to cut short for a new sound: the oldest of the lowest priority, if no more important than it
+   * @param priority the new sound's priority
+   * @return the voice, or -1 if every voice is playing something more important
+   */
+  private int victim(int priority) {
+    var victim = -1;
+    for (var i = 0; i < MAX_VOICES; i++) {
+      if (priorities[i] > priority) continue;
+      if (victim < 0 || priorities[i] < priorities[victim]
+          || (priorities[i] == priorities[victim] && starts[i] - starts[victim] < 0)) {
+        victim = i;
+      }
+    }
+    return victim;
+  }
+
+  /**
+   * Lower the music until a given time
+   * @param end when to raise it again, from System.nanoTime
+   */
+  private void duckUntil(long end) {
+    musicVolume.set(DUCKED_VOLUME);
+    unduck.stop();
+    unduck.setDuration(Duration.millis(Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()))));
+    unduck.playFromStart();
+  }
+
+  /**
+   * Stop every sound and raise the music again
+   */
+  public void stopAll() {
+    for (var i = 0; i < MAX_VOICES; i++) {
+      if (clips[i] != null) {
+        clips[i].stop();
+        clips[i] = null;
+      }
+    }
+    unduck.stop();
+    musicVolume.set(MUSIC_VOLUME);
+    fireUpdated(System.nanoTime());
+  }
+
+  /**
+   * Get the number of voices playing
+   * @return active voices
+   */
+  public int getActiveVoices() {
+    return activeVoices(System.nanoTime());
+  }
+
+  /**
+   * Count the voices still playing
+   * @param now the current time
+   * @return active voices
+   */
+  private int activeVoices(long now) {
+    var count = 0;
+    for (var i = 0; i < MAX_VOICES; i++) {
+      if (clips[i] != null && now - ends[i] < 0) count++;
+    }
+    return count;
+  }
+
+  /**
+   * Get the total sounds played
+   * @return sounds played
+   */
+  public long getPlayed() {
+    return played;
+  }
+
+  /**
+   * Get the total sounds cut short to make room for another
+   * @return sounds stolen
+   */
+  public long getStolen() {
+    return stolen;
+  }
+
+  /**
+   * Get the total sounds dropped because every voice was busy
+   * @return sounds dropped
+   */
+  public long getDropped() {
+    return dropped;
+  }
+
+  /**
+   * The volume the music should play at, lowered while sounds play
+   * @return the music volume
+   */
+  public DoubleProperty musicVolumeProperty() {
+    return musicVolume;
+  }
+
+  /**
+   * Set the listener told whenever a sound is played, stolen or dropped
+   * @param listener the listener
+   */
+  public void setOnMixerUpdated(MixerListener listener) {
+    this.mixerListener = listener;
+  }
+
+  /**
+   * Tell the listener the mixer has changed
+   * @param now the current time
+   */
+  private void fireUpdated(long now) {
+    if (mixerListener != null) {
+      mixerListener.mixerUpdated(activeVoices(now), played, stolen, dropped);
+    }
+  }
+}
@@ -1,11 +1,15 @@
 package uk.ac.soton.comp1206.ui;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.App;
@@ -19,6 +23,9 @@ import uk.ac.soton.comp1206.scene.*;
  *
  * The GameWindow has methods to launch each of the different parts of the game by switching scenes. You can add more
  * methods here to add more screens to the game.
+ *
+ * Reusable scenes are kept once built and shown again rather than rebuilt. Once a scene has settled, the scenes the
+ * player is likely to go to next are built in the background, so moving to them only has to swap them in.
  */
 public class GameWindow {
 
@@ -29,9 +36,29 @@ public class GameWindow {
 
     private final Stage stage;
 
+    /**
+     * How long a scene is left to settle before the next scenes are built
+     */
+    private static final Duration PREBUILD_DELAY = Duration.millis(250);
+
     private BaseScene currentScene;
     private Scene scene;
 
+    /**
+     * The reusable scenes built so far, by type
+     */
+    private final Map<Class<? extends BaseScene>, BaseScene> pool = new HashMap<>();
+
+    /**
+     * A challenge built ahead of time, ready to be played next, or null
+     */
+    private ChallengeScene nextChallenge;
+
+    /**
+     * Builds the likely next scenes once the current one has settled
+     */
+    private final PauseTransition prebuild = new PauseTransition(PREBUILD_DELAY);
+
     final Communicator communicator;
 
     /**
@@ -49,29 +76,32 @@ public class GameWindow {
         //Setup window
         setupStage();
 
-        //Setup resources
-        setupResources();
-
         //Setup default scene
         setupDefaultScene();
 
-        //Setup communicator
+        //Setup communicator, which connects in the background
         communicator = new Communicator("ws://ofb-labs.soton.ac.uk:9700");
 
-        //Go to menu
-        startMenu();
+        //Setup resources, going to the menu once they are ready
+        setupResources();
     }
 
     /**
-     * Setup the font and any other resources we need
+     * Show the loading screen while the fonts and any other resources we need load in the background, then go to the
+     * menu once it has everything it needs
      */
     private void setupResources() {
         logger.info("Loading resources");
-
-        //We need to load fonts here due to the Font loader bug with spaces in URLs in the CSS files
-        Font.loadFont(getClass().getResourceAsStream("/style/Orbitron-Regular.ttf"),32);
-        Font.loadFont(getClass().getResourceAsStream("/style/Orbitron-Bold.ttf"),32);
-        Font.loadFont(getClass().getResourceAsStream("/style/Orbitron-ExtraBold.ttf"),32);
+        var loader = new StartupLoader();
+        loadScene(new LoadingScene(this));
+        logger.info("Showing loading screen after {}ms", loader.elapsed());
+
+        loader.loadCritical().thenRun(() -> Platform.runLater(() -> {
+            //Go to menu
+            startMenu();
+            logger.info("Interactive after {}ms", loader.elapsed());
+            loader.loadRest();
+        }));
     }
 
     /**
@@ -79,7 +109,7 @@ public class GameWindow {
      */
     public void startInstructions() {
 
-        loadScene(new InstructionsScene(this));
+        loadScene(pooled(InstructionsScene.class, () -> new InstructionsScene(this)));
     }
 
     /**
@@ -94,13 +124,49 @@ public class GameWindow {
      * Display the main menu
      */
     public void startMenu() {
-        loadScene(new MenuScene(this));
+        loadScene(pooled(MenuScene.class, () -> new MenuScene(this)));
     }
 
     /**
      * Display the single player challenge
      */
-    public void startChallenge() { loadScene(new ChallengeScene(this)); }
+    public void startChallenge() {
+        var challenge = nextChallenge != null ? nextChallenge : new ChallengeScene(this);
+        nextChallenge = null;
+        loadScene(challenge);
+    }
+
+    /**
+     * Get the reusable scene of a type, creating it the first time
+     * @param type the type of scene
+     * @param factory creates the scene
+     * @return the scene
+     */
+    private BaseScene pooled(Class<? extends BaseScene> type, Supplier<BaseScene> factory) {
+        var pooled = pool.get(type);
+        if (pooled == null) {
+            pooled = factory.get();
+            if (pooled.isReusable()) pool.put(type, pooled);
+        }
+        return pooled;
+    }
+
+    /**
+     * Build the scenes the player is likely to go to next from the current one: the menu, and a new challenge unless
+     * one is already being played. Runs on the JavaFX thread once the current scene has settled, as building draws
+     * into canvases.
+     */
+    private void prebuildNext() {
+        //While loading, the menu is built as soon as it has what it needs
+        if (currentScene instanceof LoadingScene) return;
+        var start = System.nanoTime();
+        pooled(MenuScene.class, () -> new MenuScene(this)).prepare();
+        if (nextChallenge == null && !(currentScene instanceof ChallengeScene)) {
+            nextChallenge = new ChallengeScene(this);
+            nextChallenge.prepare();
+        }
+        logger.debug("Built next scenes in {}ms", (System.nanoTime() - start) / 1_000_000);
+    }
 
     /**
      * Setup the default settings for the stage itself (the window), such as the title and minimum width and height.
@@ -120,14 +186,16 @@ public class GameWindow {
         //Cleanup remains of the previous scene
         cleanup();
 
-        //Create the new scene and set it up
-        newScene.build();
+        //Set up the new scene, building it unless it was built already
+        newScene.prepare();
         currentScene = newScene;
         scene = newScene.setScene();
-        stage.setScene(scene);
 
-        //Initialise the scene when ready
-        Platform.runLater(() -> currentScene.initialise());
+        //Initialise the scene when ready, then build the next scenes once it has settled
+        Platform.runLater(() -> {
+            currentScene.initialise();
+            prebuild.playFromStart();
+        });
     }
 
     /**
@@ -136,6 +204,7 @@ public class GameWindow {
     public void setupDefaultScene() {
         this.scene = new Scene(new Pane(),width,height, Color.BLACK);
         stage.setScene(this.scene);
+        prebuild.setOnFinished(e -> prebuildNext());
     }
 
     /**
@@ -144,6 +213,11 @@ public class GameWindow {
     public void cleanup() {
         logger.info("Clearing up previous scene");
         communicator.clearListeners();
+        prebuild.stop();
+        scene.setOnKeyPressed(null);
+        if (currentScene != null) {
+            currentScene.leave();
+        }
     }
 
     /**
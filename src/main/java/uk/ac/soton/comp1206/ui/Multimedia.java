@@ -1,30 +1,47 @@
 package uk.ac.soton.comp1206.ui;
 
-import java.nio.file.Paths;
-import javafx.scene.media.Media;
-import javafx.scene.media.MediaPlayer;
-import javafx.scene.media.MediaPlayer.Status;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
- * Multimedia class to play music and audio
+ * Multimedia class to play music and audio. There is one shared instance, holding the sound effects loaded up front in
+ * a SoundBank, the AudioMixer they are played through and the MusicService playing the music. The music is turned down
+ * by the mixer while sound effects play.
  */
 public class Multimedia {
-  private MediaPlayer audioPlayer;
-  private MediaPlayer musicPlayer;
   private static final Logger logger = LogManager.getLogger(Multimedia.class);
 
+  private static Multimedia instance;
+
+  private final AudioMixer mixer = new AudioMixer(new SoundBank());
+  private final MusicService music = new MusicService(mixer.musicVolumeProperty());
+
   /**
-   * Plays music
-   * @param pathToFile name of sound file
+   * Get the shared Multimedia, loading every sound effect the first time. The first call may be made on a background
+   * thread, so the sounds load while something else is showing.
+   * @return the shared instance
+   */
+  public static synchronized Multimedia getInstance() {
+    if (instance == null) {
+      instance = new Multimedia();
+    }
+    return instance;
+  }
+
+  /**
+   * Plays music, crossfading from any music already playing
+   * @param pathToFile name of music file
    */
   public void playMusic(String pathToFile) {
-    String specificPath = Paths.get("src/main/resources/music/").toUri().toString();
-    Media audio = new Media(specificPath + pathToFile);
-    musicPlayer = new MediaPlayer(audio);
-    musicPlayer.setCycleCount(MediaPlayer.INDEFINITE);
-    musicPlayer.play();
+    music.play(pathToFile);
+  }
+
+  /**
+   * Starts loading music which is likely to be played next, so it starts without a gap
+   * @param pathToFile name of music file
+   */
+  public void prefetchMusic(String pathToFile) {
+    music.prefetch(pathToFile);
   }
 
   /**
@@ -32,28 +49,28 @@ public class Multimedia {
    * @param pathToFile name of audio file
    */
   public void playAudioFile(String pathToFile) {
-    String specificPath = Paths.get("src/main/resources/sounds/").toUri().toString();
-    Media music = new Media(specificPath + pathToFile);
-    audioPlayer = new MediaPlayer(music);
-
-    audioPlayer.play();
+    mixer.play(pathToFile);
   }
 
   /**
    * Stops the music playing
    */
   public void stopMusic() {
-    if (musicPlayer != null && musicPlayer.getStatus() == Status.PLAYING) {
-      musicPlayer.stop();
-    }
+    music.stop();
+  }
+
+  /**
+   * Get the mixer sound effects are played through, for its metrics
+   * @return the mixer
+   */
+  public AudioMixer getMixer() {
+    return mixer;
   }
 
   /**
    * Stops any audio being played
    */
   public void stopAudio() {
-    if (audioPlayer != null && audioPlayer.getStatus() == Status.PLAYING) {
-      audioPlayer.stop();
-    }
+    mixer.stopAll();
   }
 }
@@ -0,0 +1,164 @@
+package uk.ac.soton.comp1206.ui;
+
+import java.util.HashMap;
+import java.util.Map;
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.value.ObservableDoubleValue;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Plays the background music, crossfading from one track to the next.
+ *
+ * Every track in the catalogue is checked when the service is created. A track that is missing is logged then, and
+ * from then on plays the default track in its place. Each track gets one MediaPlayer, made the first time the track
+ * is prefetched or played and kept after that. A player loads in the background, so a track prefetched before it is
+ * needed is ready to start with no gap. The catalogue is small, so keeping every player costs little.
+ *
+ * Asking for the track that is already playing leaves it playing. Only used on the JavaFX thread.
+ */
+public class MusicService {
+
+  private static final Logger logger = LogManager.getLogger(MusicService.class);
+
+  /**
+   * Every music track, in the music folder of the resources
+   */
+  public static final String[] TRACKS = {"menu.mp3", "game.wav", "end.wav"};
+
+  /**
+   * The track played in place of any track which is missing
+   */
+  public static final String DEFAULT_TRACK = "menu.mp3";
+
+  /**
+   * How long one track takes to fade into the next
+   */
+  private static final Duration CROSSFADE = Duration.millis(800);
+
+  /**
+   * The file each track plays, after missing tracks are replaced by the default
+   */
+  private final Map<String, String> catalogue = new HashMap<>();
+
+  /**
+   * The player for each file, made on first use
+   */
+  private final Map<String, MediaPlayer> players = new HashMap<>();
+
+  /**
+   * How loud each player is in the crossfade, from 0 to 1
+   */
+  private final Map<MediaPlayer, DoubleProperty> fades = new HashMap<>();
+
+  /**
+   * The overall music volume, which every player is scaled by
+   */
+  private final ObservableDoubleValue volume;
+
+  /**
+   * The player playing now, or null
+   */
+  private MediaPlayer current;
+
+  /**
+   * The crossfade running, if any
+   */
+  private Timeline crossfade;
+
+  /**
+   * Create the music service and check every track exists
+   * @param volume the overall music volume, such as the mixer's, lowered while sound effects play
+   */
+  public MusicService(ObservableDoubleValue volume) {
+    this.volume = volume;
+    for (var track : TRACKS) {
+      if (MusicService.class.getResource("/music/" + track) != null) {
+        catalogue.put(track, track);
+      } else {
+        logger.error("Missing music {}, playing {} in its place", track, DEFAULT_TRACK);
+        catalogue.put(track, DEFAULT_TRACK);
+      }
+    }
+    logger.info("Checked {} music tracks", TRACKS.length);
+  }
+
+  /**
+   * Start loading a track in the background, so it plays without a gap when it is next asked for
+   * @param track the track's file name
+   */
+  public void prefetch(String track) {
+    player(track);
+  }
+
+  /**
+   * Crossfade to a track, which loops until another is played. If the track is already playing, it carries on.
+   * @param track the track's file name
+   */
+  public void play(String track) {
+    var next = player(track);
+    if (next == null || next == current) return;
+
+    var previous = current;
+    current = next;
+    if (crossfade != null) crossfade.stop();
+
+    var fadeIn = fades.get(next);
+    next.seek(Duration.ZERO);
+    next.play();
+
+    var frames = new Timeline(new KeyFrame(CROSSFADE, new KeyValue(fadeIn, 1.0)));
+    if (previous != null) {
+      frames.getKeyFrames().add(new KeyFrame(CROSSFADE, new KeyValue(fades.get(previous), 0.0)));
+      frames.setOnFinished(e -> previous.stop());
+    }
+    crossfade = frames;
+    crossfade.play();
+  }
+
+  /**
+   * Stop the music straight away
+   */
+  public void stop() {
+    if (crossfade != null) crossfade.stop();
+    for (var player : players.values()) {
+      player.stop();
+      fades.get(player).set(0);
+    }
+    current = null;
+  }
+
+  /**
+   * Get the player for a track, making it if this is the first time the track is used
+   * @param track the track's file name
+   * @return the player, or null if the track is not in the catalogue
+   */
+  private MediaPlayer player(String track) {
+    var file = catalogue.get(track);
+    if (file == null) {
+      logger.error("Unknown music {}", track);
+      return null;
+    }
+
+    var player = players.get(file);
+    if (player == null) {
+      var resource = MusicService.class.getResource("/music/" + file);
+      player = new MediaPlayer(new Media(resource.toExternalForm()));
+      player.setCycleCount(MediaPlayer.INDEFINITE);
+      var fade = new SimpleDoubleProperty(0);
+      player.volumeProperty().bind(fade.multiply(volume));
+      player.setOnError(() -> logger.error("Could not play music {}", file));
+      players.put(file, player);
+      fades.put(player, fade);
+      logger.debug("Prefetching music {}", file);
+    }
+    return player;
+  }
+}
@@ -0,0 +1,220 @@
+package uk.ac.soton.comp1206.ui;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import javafx.scene.image.Image;
+import javafx.scene.text.Font;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Holds the resources loaded from the classpath, keyed by path, so each one is read and decoded only once however many
+ * scenes use it.
+ *
+ * Images are decoded at the height they are shown at rather than their full size, and are kept in least recently used
+ * order. Once the images held take up more than the memory budget, the least recently used are dropped until they fit.
+ * Fonts and stylesheets are tiny and are never dropped. Sounds and music are kept by the SoundBank and MusicService.
+ *
+ * Safe to use from any thread, so resources can be loaded in the background. Loading happens outside the lock, so two
+ * threads asking for the same missing resource at once may both load it, and only the first is kept.
+ */
+public class ResourceCache {
+
+    private static final Logger logger = LogManager.getLogger(ResourceCache.class);
+
+    /**
+     * The default memory budget for images, in bytes
+     */
+    public static final long DEFAULT_BUDGET = 32L * 1024 * 1024;
+
+    private static ResourceCache instance;
+
+    /**
+     * Every resource held, in least recently used order
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The most memory the images held may take up
+     */
+    private long budget = DEFAULT_BUDGET;
+
+    /**
+     * The memory the images held take up
+     */
+    private long used = 0;
+
+    /**
+     * Number of lookups found in the cache, not found, and resources dropped to stay in budget
+     */
+    private long hits = 0, misses = 0, evictions = 0;
+
+    /**
+     * A resource held in the cache
+     * @param value the resource
+     * @param bytes the memory it takes up, or 0 if it is never dropped
+     */
+    private record Entry(Object value, long bytes) {}
+
+    /**
+     * Get the shared cache
+     * @return the shared instance
+     */
+    public static synchronized ResourceCache getInstance() {
+        if (instance == null) {
+            instance = new ResourceCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Get an image, decoded to be shown at a given height with its aspect ratio kept
+     * @param path the path of the image on the classpath
+     * @param height the height it is shown at
+     * @return the image
+     */
+    public Image getImage(String path, double height) {
+        return get(path + "@" + height, () -> {
+            var image = new Image(url(path), 0, height, true, true);
+            if (image.isError()) logger.error("Could not load image {}", path, image.getException());
+            return image;
+        }, image -> (long) (image.getWidth() * image.getHeight()) * 4);
+    }
+
+    /**
+     * Load a font so it can be used by name from the stylesheets
+     * @param path the path of the font on the classpath
+     * @return the font
+     */
+    public Font getFont(String path) {
+        return get(path, () -> {
+            try (var stream = ResourceCache.class.getResourceAsStream(path)) {
+                var font = stream == null ? null : Font.loadFont(stream, 32);
+                if (font == null) logger.error("Could not load font {}", path);
+                return font;
+            } catch (IOException e) {
+                logger.error("Could not load font {}", path, e);
+                return null;
+            }
+        }, font -> 0);
+    }
+
+    /**
+     * Get the URL of a stylesheet, to add to a scene. JavaFX keeps the parsed stylesheet by URL, so every scene
+     * shares it.
+     * @param path the path of the stylesheet on the classpath
+     * @return the URL
+     */
+    public String getStylesheet(String path) {
+        return get(path, () -> url(path), url -> 0);
+    }
+
+    /**
+     * Look up a resource, loading it if it is not held
+     * @param key the cache key
+     * @param loader loads the resource
+     * @param size works out the memory a loaded resource takes up
+     * @return the resource
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, Supplier<T> loader, ToLongFunction<T> size) {
+        synchronized (this) {
+            var entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return (T) entry.value();
+            }
+            misses++;
+        }
+
+        var value = loader.get();
+        if (value == null) return null;
+        var bytes = size.applyAsLong(value);
+
+        synchronized (this) {
+            var existing = entries.putIfAbsent(key, new Entry(value, bytes));
+            if (existing != null) return (T) existing.value();
+            used += bytes;
+            evict(key);
+        }
+        return value;
+    }
+
+    /**
+     * Drop the least recently used images until those held fit in the budget
+     * @param keep the key just added, which is never dropped
+     */
+    private void evict(String keep) {
+        var iterator = entries.entrySet().iterator();
+        while (used > budget && iterator.hasNext()) {
+            var next = iterator.next();
+            if (next.getValue().bytes() == 0 || next.getKey().equals(keep)) continue;
+            used -= next.getValue().bytes();
+            iterator.remove();
+            evictions++;
+            logger.debug("Evicted {}", next.getKey());
+        }
+    }
+
+    /**
+     * Get the URL of a resource on the classpath
+     * @param path the path
+     * @return the URL
+     */
+    private static String url(String path) {
+        var resource = ResourceCache.class.getResource(path);
+        if (resource == null) throw new IllegalArgumentException("Missing resource " + path);
+        return resource.toExternalForm();
+    }
+
+    /**
+     * Set the most memory the images held may take up, dropping images at once if they no longer fit
+     * @param budget the budget in bytes
+     */
+    public synchronized void setBudget(long budget) {
+        this.budget = budget;
+        evict(null);
+    }
+
+    /**
+     * Get the most memory the images held may take up
+     * @return the budget in bytes
+     */
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Get the memory the images held take up
+     * @return the memory in bytes
+     */
+    public synchronized long getUsed() {
+        return used;
+    }
+
+    /**
+     * Get the number of lookups found in the cache
+     * @return hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups which had to load the resource
+     * @return misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of images dropped to stay within the budget
+     * @return evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,140 @@
+package uk.ac.soton.comp1206.ui;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javafx.scene.media.AudioClip;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Holds every sound effect, loaded once from the classpath into an AudioClip, so playing a sound starts straight away
+ * with nothing to load or decode. Sounds are looked up by id, which is their file name, and are played through an
+ * AudioMixer.
+ */
+public class SoundBank {
+
+  private static final Logger logger = LogManager.getLogger(SoundBank.class);
+
+  /**
+   * Every sound effect, in the sounds folder of the resources
+   */
+  public static final String[] SOUNDS = {
+      "clear.wav", "explode.wav", "fail.wav", "intro.mp3", "level.wav", "lifegain.wav", "lifelose.wav",
+      "message.wav", "place.wav", "pling.wav", "rotate.wav", "transition.wav"
+  };
+
+  /**
+   * The category of each sound effect in SOUNDS
+   */
+  private static final SoundCategory[] CATEGORIES = {
+      SoundCategory.GAMEPLAY, SoundCategory.GAMEPLAY, SoundCategory.GAMEPLAY, SoundCategory.UI, SoundCategory.ALERT,
+      SoundCategory.ALERT, SoundCategory.ALERT, SoundCategory.UI, SoundCategory.GAMEPLAY, SoundCategory.UI,
+      SoundCategory.UI, SoundCategory.UI
+  };
+
+  /**
+   * How long a sound is assumed to last when its length cannot be read from the file
+   */
+  private static final long DEFAULT_LENGTH = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * The loaded sounds by id
+   */
+  private final Map<String, AudioClip> clips = new HashMap<>();
+
+  /**
+   * How long each sound lasts, in nanoseconds, by id
+   */
+  private final Map<String, Long> lengths = new HashMap<>();
+
+  /**
+   * The category of each sound, by id
+   */
+  private final Map<String, SoundCategory> categories = new HashMap<>();
+
+  /**
+   * Load every sound effect
+   */
+  public SoundBank() {
+    var start = System.nanoTime();
+    for (var i = 0; i < SOUNDS.length; i++) {
+      var id = SOUNDS[i];
+      var resource = SoundBank.class.getResource("/sounds/" + id);
+      if (resource == null) {
+        logger.error("Missing sound {}", id);
+        continue;
+      }
+      clips.put(id, new AudioClip(resource.toExternalForm()));
+      lengths.put(id, length(id));
+      categories.put(id, CATEGORIES[i]);
+    }
+    logger.info("Loaded {} sounds in {}ms", clips.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * Get a loaded sound
+   * @param id the sound's file name
+   * @return the clip, or null if there is no such sound
+   */
+  public AudioClip getClip(String id) {
+    return clips.get(id);
+  }
+
+  /**
+   * Get how long a sound lasts
+   * @param id the sound's file name
+   * @return the length in nanoseconds
+   */
+  public long getLength(String id) {
+    return lengths.getOrDefault(id, DEFAULT_LENGTH);
+  }
+
+  /**
+   * Get the category of a sound, which decides its priority
+   * @param id the sound's file name
+   * @return the category
+   */
+  public SoundCategory getCategory(String id) {
+    return categories.getOrDefault(id, SoundCategory.UI);
+  }
+
+  /**
+   * Work out how long a sound lasts from the header of its WAV file
+   * @param id the sound's file name
+   * @return the length in nanoseconds, or DEFAULT_LENGTH if it cannot be read
+   */
+  private static long length(String id) {
+    if (!id.endsWith(".wav")) return DEFAULT_LENGTH;
+    try (var stream = SoundBank.class.getResourceAsStream("/sounds/" + id)) {
+      var in = new DataInputStream(stream);
+      //"RIFF", the file size, then "WAVE"
+      if (in.readInt() != 0x52494646 || in.skipBytes(4) != 4 || in.readInt() != 0x57415645) {
+        return DEFAULT_LENGTH;
+      }
+
+      //Walk the chunks until the format and data have both been seen
+      var byteRate = 0L;
+      while (true) {
+        var tag = in.readInt();
+        var size = Integer.toUnsignedLong(Integer.reverseBytes(in.readInt()));
+        //"fmt " holds the byte rate after the format, channels and sample rate
+        if (tag == 0x666D7420) {
+          in.skipBytes(8);
+          byteRate = Integer.toUnsignedLong(Integer.reverseBytes(in.readInt()));
+          in.skipNBytes(size - 12);
+        } else if (tag == 0x64617461) {
+          //"data" holds the samples themselves
+          return byteRate > 0 ? TimeUnit.SECONDS.toNanos(1) * size / byteRate : DEFAULT_LENGTH;
+        } else {
+          in.skipNBytes(size + (size & 1));
+        }
+      }
+    } catch (IOException e) {
+      return DEFAULT_LENGTH;
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package uk.ac.soton.comp1206.ui;
+
+/**
+ * The kinds of sound effect, in order of priority. When every voice is busy, a sound can take over a voice playing a
+ * sound of the same or a lower priority.
+ */
+public enum SoundCategory {
+
+  /**
+   * Menu and control feedback, such as rotating or swapping pieces
+   */
+  UI,
+
+  /**
+   * The results of playing, such as placing pieces and clearing lines
+   */
+  GAMEPLAY,
+
+  /**
+   * Things the player must not miss, such as levelling up or losing a life
+   */
+  ALERT
+}
@@ -0,0 +1,110 @@
+package uk.ac.soton.comp1206.ui;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.scores.ScoreRepository;
+
+/**
+ * Loads the game's resources in the background while the loading screen shows, timing and logging each phase.
+ *
+ * The critical phases load what the menu needs: the fonts, the stylesheet, the title image and the sound effects.
+ * They run in parallel, and the menu is shown once they have all finished. The rest, such as the images for the other
+ * scenes and the high scores, carries on loading after that. Everything is loaded into the ResourceCache, Multimedia
+ * and ScoreRepository, so the scenes then find it already there.
+ */
+public class StartupLoader {
+
+    private static final Logger logger = LogManager.getLogger(StartupLoader.class);
+
+    /**
+     * The threads the phases run on, which do not stop the game from exiting
+     */
+    private final ExecutorService pool = Executors.newFixedThreadPool(
+        Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())), runnable -> {
+            var thread = new Thread(runnable, "StartupLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    /**
+     * When loading started, from System.nanoTime
+     */
+    private final long start = System.nanoTime();
+
+    /**
+     * Start loading the resources the menu needs
+     * @return completes once they have all loaded
+     */
+    public CompletableFuture<Void> loadCritical() {
+        var cache = ResourceCache.getInstance();
+        return CompletableFuture.allOf(
+            //We need to load fonts here due to the Font loader bug with spaces in URLs in the CSS files
+            phase("fonts", () -> {
+                cache.getFont("/style/Orbitron-Regular.ttf");
+                cache.getFont("/style/Orbitron-Bold.ttf");
+                cache.getFont("/style/Orbitron-ExtraBold.ttf");
+            }),
+            phase("stylesheet", () -> cache.getStylesheet("/style/game.css")),
+            phase("menu images", () -> cache.getImage("/images/TetrECS.png", 150)),
+            phase("sounds", Multimedia::getInstance)
+        );
+    }
+
+    /**
+     * Start loading the resources which are only needed once the menu is showing, then let the threads finish
+     * @return completes once they have all loaded
+     */
+    public CompletableFuture<Void> loadRest() {
+        var cache = ResourceCache.getInstance();
+        var rest = CompletableFuture.allOf(
+            phase("game images", () -> cache.getImage("/images/TetrECS.png", 75)),
+            phase("instructions images", () -> cache.getImage("/images/Instructions.png", 320)),
+            phase("scores", () -> ScoreRepository.getInstance().getScores())
+        );
+        rest.whenComplete((result, error) -> {
+            pool.shutdown();
+            logger.info("Loaded everything in {}ms", elapsed(start));
+        });
+        return rest;
+    }
+
+    /**
+     * Run one phase of loading in the background, logging how long it took. A phase which fails is logged and
+     * counted as done, so the game still starts and loads the resource again when it is first used.
+     * @param name name of the phase, for the log
+     * @param task the work to do
+     * @return completes when the phase has finished
+     */
+    private CompletableFuture<Void> phase(String name, Runnable task) {
+        return CompletableFuture.runAsync(() -> {
+            var phaseStart = System.nanoTime();
+            try {
+                task.run();
+                logger.info("Loaded {} in {}ms", name, elapsed(phaseStart));
+            } catch (RuntimeException e) {
+                logger.error("Could not load {}", name, e);
+            }
+        }, pool);
+    }
+
+    /**
+     * Get the milliseconds since loading started
+     * @return milliseconds since the start
+     */
+    public long elapsed() {
+        return elapsed(start);
+    }
+
+    /**
+     * Get the milliseconds since a time
+     * @param from the time, from System.nanoTime
+     * @return milliseconds since then
+     */
+    private static long elapsed(long from) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - from);
+    }
+}
@@ -0,0 +1,215 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.ai.Heuristic;
+import uk.ac.soton.comp1206.ai.MoveSearch;
+import uk.ac.soton.comp1206.event.EngineListener;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.LineClear;
+
+/**
+ * Checks the game rules: placing, scoring, the multiplier, levels, lives and the power ups
+ */
+class GameEngineTest {
+
+    private static final GamePiece DOT = GamePiece.createPiece(3);
+
+    @Test
+    void rejectsPiecesWhichDoNotFit() {
+        var engine = new GameEngine(5, 5);
+        var rejected = new ArrayList<GamePiece>();
+        engine.setListener(new EngineListener() {
+            @Override
+            public void pieceRejected(GamePiece piece, int x, int y) {
+                rejected.add(piece);
+            }
+        });
+        engine.start();
+        for (var y = 0; y < 5; y++) {
+            for (var x = 0; x < 5; x++) {
+                engine.getGrid().set(x, y, 1);
+            }
+        }
+        var current = engine.getCurrentPiece();
+        assertFalse(engine.playPiece(2, 2));
+        assertFalse(engine.playPiece(-5, -5));
+        assertEquals(2, rejected.size());
+        assertEquals(current, engine.getCurrentPiece());
+    }
+
+    @Test
+    void playingDealsTheNextPiece() {
+        var engine = new GameEngine(5, 5);
+        engine.start();
+        var following = engine.getFollowingPiece();
+        //Every piece fits in the middle of an empty grid
+        assertTrue(engine.playPiece(2, 2));
+        assertEquals(following, engine.getCurrentPiece());
+        assertEquals(0, engine.getScore());
+    }
+
+    @Test
+    void clearingLinesScoresAndRaisesTheMultiplier() {
+        var engine = new GameEngine(5, 5);
+        var cleared = new ArrayList<Integer>();
+        engine.setListener(new EngineListener() {
+            @Override
+            public void linesCleared(LineClear lines) {
+                cleared.add(lines.getLineCount());
+            }
+        });
+        engine.start();
+
+        fillRow(engine, 0);
+        //One line of five blocks at multiplier 1
+        assertEquals(50, engine.getScore());
+        assertEquals(2, engine.getMultiplier());
+        assertEquals(0, engine.getGrid().getRowMask(0));
+
+        fillRow(engine, 1);
+        assertEquals(50 + 100, engine.getScore());
+        assertEquals(3, engine.getMultiplier());
+        assertEquals(2, cleared.size());
+
+        //A piece which clears nothing resets the multiplier
+        play(engine, 0, 3);
+        assertEquals(1, engine.getMultiplier());
+        assertEquals(150, engine.getScore());
+    }
+
+    @Test
+    void clearingARowAndAColumnCountsSharedBlocksOnce() {
+        var engine = new GameEngine(5, 5);
+        engine.start();
+        for (var i = 0; i < 5; i++) {
+            if (i != 2) {
+                engine.getGrid().set(i, 2, 1);
+                engine.getGrid().set(2, i, 1);
+            }
+        }
+        play(engine, 2, 2);
+        //Two lines of nine distinct blocks
+        assertEquals(2 * 9 * 10, engine.getScore());
+    }
+
+    @Test
+    void levelFollowsTheScore() {
+        var engine = new GameEngine(5, 5);
+        engine.start();
+        assertEquals(12000, engine.getTimerDelay());
+        var rows = 0;
+        while (engine.getScore() < 1000) {
+            fillRow(engine, rows++ % 5);
+        }
+        assertEquals(engine.getScore() / 1000, engine.getLevel());
+        assertEquals(Math.max(2500, 12000 - 500 * engine.getLevel()), engine.getTimerDelay());
+    }
+
+    @Test
+    void powerUpsCostPoints() {
+        var engine = new GameEngine(5, 5);
+        engine.start();
+        assertFalse(engine.clearAll());
+        assertFalse(engine.addLife());
+        while (engine.getScore() < GameEngine.CLEAR_ALL_COST + GameEngine.ADD_LIFE_COST) {
+            fillRow(engine, 0);
+        }
+        var score = engine.getScore();
+        engine.getGrid().set(4, 4, 1);
+
+        assertTrue(engine.addLife());
+        assertEquals(GameEngine.STARTING_LIVES + 1, engine.getLives());
+        assertTrue(engine.clearAll());
+        assertEquals(score - GameEngine.CLEAR_ALL_COST - GameEngine.ADD_LIFE_COST, engine.getScore());
+        assertEquals(0, engine.getGrid().get(4, 4));
+    }
+
+    @Test
+    void timerCostsLivesThenEndsTheGame() {
+        var engine = new GameEngine(5, 5);
+        engine.start();
+        for (var lives = GameEngine.STARTING_LIVES - 1; lives >= 0; lives--) {
+            var following = engine.getFollowingPiece();
+            engine.timerExpired();
+            assertEquals(lives, engine.getLives());
+            assertEquals(following, engine.getCurrentPiece());
+            assertEquals(1, engine.getMultiplier());
+            assertFalse(engine.isOver());
+        }
+        engine.timerExpired();
+        assertTrue(engine.isOver());
+    }
+
+    @Test
+    void nothingChangesOnceTheGameIsOver() {
+        var engine = new GameEngine(5, 5);
+        engine.start();
+        for (var i = 0; i <= GameEngine.STARTING_LIVES; i++) {
+            engine.timerExpired();
+        }
+        assertTrue(engine.isOver());
+        var current = engine.getCurrentPiece();
+        var following = engine.getFollowingPiece();
+
+        assertFalse(engine.playPiece(2, 2));
+        engine.rotateCurrentPiece(1);
+        engine.swapCurrentPiece();
+        engine.timerExpired();
+        assertEquals(current, engine.getCurrentPiece());
+        assertEquals(following, engine.getFollowingPiece());
+        assertEquals(0, engine.getGrid().getRowMask(2));
+        assertEquals(0, engine.getLives());
+    }
+
+    @Test
+    void playsTheBestMoveFound() {
+        var engine = new GameEngine(5, 5);
+        engine.start();
+        var search = new MoveSearch(Heuristic.standard());
+        for (var turn = 0; turn < 30; turn++) {
+            var move = search.search(engine, true);
+            if (move == null) break;
+            assertTrue(engine.playMove(move), "move " + move + " was not legal");
+        }
+        assertNotNull(engine.getCurrentPiece());
+    }
+
+    @Test
+    void dealsFromTheGenerator() {
+        var line = (byte) 0;
+        var dot = (byte) DOT.getPiece();
+        var engine = new GameEngine(5, 5, PieceGenerator.sequence(line, dot));
+        engine.start();
+        assertEquals(line, engine.getCurrentPiece().getPiece());
+        assertEquals(dot, engine.getFollowingPiece().getPiece());
+        engine.rotateCurrentPiece(1);
+        assertEquals(1, engine.getCurrentPiece().getRotation());
+        engine.swapCurrentPiece();
+        assertEquals(dot, engine.getCurrentPiece().getPiece());
+        assertEquals(line, engine.getFollowingPiece().getPiece());
+    }
+
+    /**
+     * Place a dot and apply the rules to it, whatever piece the engine would deal
+     */
+    private static void play(GameEngine engine, int x, int y) {
+        engine.getGrid().playPiece(DOT, x, y);
+        engine.afterPiece(DOT, x, y);
+    }
+
+    /**
+     * Fill all but the end of a row, then play a dot there to clear it
+     */
+    private static void fillRow(GameEngine engine, int y) {
+        for (var x = 0; x < 4; x++) {
+            engine.getGrid().set(x, y, 1);
+        }
+        play(engine, 4, y);
+    }
+}
@@ -0,0 +1,81 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * Checks that every generator deals the same pieces from the same seed, which replays depend on
+ */
+class PieceGeneratorTest {
+
+    @Test
+    void sameSeedDealsTheSamePieces() {
+        for (var type : new int[] {PieceGenerator.RANDOM, PieceGenerator.BAG}) {
+            assertArrayEquals(deal(PieceGenerator.create(type, 1206), 1000),
+                deal(PieceGenerator.create(type, 1206), 1000));
+            assertFalse(Arrays.equals(deal(PieceGenerator.create(type, 1206), 1000),
+                deal(PieceGenerator.create(type, 1207), 1000)));
+        }
+    }
+
+    @Test
+    void createMatchesTheNamedGenerators() {
+        assertArrayEquals(deal(PieceGenerator.random(42), 600),
+            deal(PieceGenerator.create(PieceGenerator.RANDOM, 42), 600));
+        assertArrayEquals(deal(PieceGenerator.bag(42), 600),
+            deal(PieceGenerator.create(PieceGenerator.BAG, 42), 600));
+        assertEquals(42, PieceGenerator.bag(42).getSeed());
+        assertEquals(PieceGenerator.BAG, PieceGenerator.bag(42).getType());
+        assertThrows(IllegalArgumentException.class, () -> PieceGenerator.create(PieceGenerator.SEQUENCE, 42));
+    }
+
+    @Test
+    void randomDealsEveryPiece() {
+        var counts = new int[GamePiece.PIECES];
+        for (var piece : deal(PieceGenerator.random(7), 15000)) {
+            counts[piece]++;
+        }
+        for (var count : counts) {
+            assertTrue(count > 800 && count < 1200, "piece dealt " + count + " times in 15000");
+        }
+    }
+
+    @Test
+    void bagDealsEveryPieceOncePerBag() {
+        var pieces = deal(PieceGenerator.bag(3), GamePiece.PIECES * 40);
+        for (var bag = 0; bag < pieces.length; bag += GamePiece.PIECES) {
+            var seen = new boolean[GamePiece.PIECES];
+            for (var i = bag; i < bag + GamePiece.PIECES; i++) {
+                assertFalse(seen[pieces[i]], "piece " + pieces[i] + " dealt twice in bag " + bag / GamePiece.PIECES);
+                seen[pieces[i]] = true;
+            }
+        }
+    }
+
+    @Test
+    void sequenceRepeats() {
+        var generator = PieceGenerator.sequence((byte) 3, (byte) 0, (byte) 14);
+        assertArrayEquals(new int[] {3, 0, 14, 3, 0, 14, 3}, deal(generator, 7));
+        assertEquals(PieceGenerator.SEQUENCE, generator.getType());
+        assertThrows(IllegalArgumentException.class, () -> PieceGenerator.sequence());
+        assertThrows(IllegalArgumentException.class, () -> PieceGenerator.sequence((byte) GamePiece.PIECES));
+    }
+
+    /**
+     * Deal a number of piece numbers
+     */
+    private static int[] deal(PieceGenerator generator, int count) {
+        var pieces = new int[count];
+        for (var i = 0; i < count; i++) {
+            pieces[i] = generator.next();
+        }
+        return pieces;
+    }
+}
@@ -0,0 +1,73 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the shared orientation table and the masks worked out for each orientation
+ */
+class GamePieceTest {
+
+    @Test
+    void rotatingReturnsSharedOrientations() {
+        for (var piece = 0; piece < GamePiece.PIECES; piece++) {
+            var start = GamePiece.createPiece(piece);
+            assertSame(start, start.rotate(GamePiece.ROTATIONS));
+            assertSame(start.rotate(), GamePiece.createPiece(piece, 1));
+            assertSame(start.rotate(3), start.rotate().rotate().rotate());
+            assertSame(start, start.rotate(-4));
+        }
+    }
+
+    @Test
+    void rotatingTurnsEveryBlockClockwise() {
+        for (var piece = 0; piece < GamePiece.PIECES; piece++) {
+            var before = GamePiece.createPiece(piece);
+            var after = before.rotate();
+            assertEquals(before.getBlockCount(), after.getBlockCount());
+            assertEquals(before.getValue(), after.getValue());
+            var rotated = 0;
+            for (var block = 0; block < before.getBlockCount(); block++) {
+                //x, y turns to -y, x with y pointing down
+                rotated |= bit(-before.getOffsetY(block), before.getOffsetX(block));
+            }
+            assertEquals(rotated, after.getMask(), before.toString());
+        }
+    }
+
+    @Test
+    void masksMatchTheBlocks() {
+        for (var index = 0; index < GamePiece.PIECES * GamePiece.ROTATIONS; index++) {
+            var piece = GamePiece.createPiece(index / GamePiece.ROTATIONS, index % GamePiece.ROTATIONS);
+            assertEquals(index, piece.getIndex());
+            var mask = 0;
+            var rows = new int[3];
+            for (var block = 0; block < piece.getBlockCount(); block++) {
+                var x = piece.getOffsetX(block);
+                var y = piece.getOffsetY(block);
+                mask |= bit(x, y);
+                rows[y + 1] |= 1 << (x - piece.getMinX());
+            }
+            assertEquals(mask, piece.getMask());
+            for (var y = piece.getMinY(); y <= piece.getMaxY(); y++) {
+                assertEquals(rows[y + 1], piece.getRowBits(y));
+            }
+        }
+    }
+
+    @Test
+    void unknownPiecesAreRejected() {
+        assertThrows(IndexOutOfBoundsException.class, () -> GamePiece.createPiece(GamePiece.PIECES));
+        assertThrows(IndexOutOfBoundsException.class, () -> GamePiece.createPiece(-1));
+    }
+
+    /**
+     * The bit of the 3x3 mask for an offset from the centre
+     */
+    private static int bit(int x, int y) {
+        return 1 << (x + 1 + 3 * (y + 1));
+    }
+}
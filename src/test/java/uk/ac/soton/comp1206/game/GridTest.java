@@ -0,0 +1,168 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the colour plane, the occupancy masks and the placement and line checks built on them against simple
+ * block-by-block versions
+ */
+class GridTest {
+
+    @Test
+    void setAndGet() {
+        var grid = new Grid(5, 4);
+        grid.set(4, 3, 7);
+        assertEquals(7, grid.get(4, 3));
+        assertEquals(0, grid.get(0, 0));
+        assertEquals(-1, grid.get(5, 0));
+        assertEquals(-1, grid.get(0, -1));
+    }
+
+    @Test
+    void setOutsideTheGridThrows() {
+        var grid = new Grid(5, 5);
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(5, 0, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(-1, 2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(0, 5, 1));
+        //Nothing wrapped into the next row
+        assertEquals(0, grid.get(0, 1));
+        assertEquals(0, grid.getRowMask(1));
+    }
+
+    @Test
+    void masksFollowTheColourPlane() {
+        var random = new Random(1);
+        for (var size : new int[] {3, 5, 8, 12}) {
+            var grid = new Grid(size, size);
+            for (var i = 0; i < 500; i++) {
+                var x = random.nextInt(size);
+                var y = random.nextInt(size);
+                grid.set(x, y, random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(GamePiece.PIECES));
+            }
+            for (var y = 0; y < size; y++) {
+                for (var x = 0; x < size; x++) {
+                    var filled = grid.get(x, y) != 0;
+                    assertEquals(filled, (grid.getRowMask(y) & 1L << x) != 0);
+                    assertEquals(filled, (grid.getColMask(x) & 1L << y) != 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    void versionOnlyChangesWithOccupancy() {
+        var grid = new Grid(5, 5);
+        var version = grid.getVersion();
+        grid.set(1, 1, 3);
+        assertNotEquals(version, grid.getVersion());
+        version = grid.getVersion();
+        grid.set(1, 1, 4);
+        assertEquals(version, grid.getVersion());
+        grid.set(1, 1, 0);
+        assertNotEquals(version, grid.getVersion());
+    }
+
+    @Test
+    void canPlayPieceMatchesBlockByBlockCheck() {
+        var random = new Random(2);
+        //5x5 uses the placement table, 9x9 checks row by row
+        for (var size : new int[] {5, 9}) {
+            var grid = new Grid(size, size);
+            for (var round = 0; round < 20; round++) {
+                for (var i = 0; i < size; i++) {
+                    grid.set(random.nextInt(size), random.nextInt(size), random.nextInt(2));
+                }
+                for (var piece = 0; piece < GamePiece.PIECES; piece++) {
+                    for (var rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+                        var orientation = GamePiece.createPiece(piece, rotation);
+                        for (var y = -2; y < size + 2; y++) {
+                            for (var x = -2; x < size + 2; x++) {
+                                assertEquals(fits(grid, orientation, x, y), grid.canPlayPiece(orientation, x, y),
+                                    orientation + " rotation " + rotation + " at " + x + "," + y);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void playPieceFillsItsBlocks() {
+        var grid = new Grid(5, 5);
+        var plus = GamePiece.createPiece(2);
+        grid.playPiece(plus, 2, 2);
+        for (var block = 0; block < plus.getBlockCount(); block++) {
+            assertEquals(plus.getValue(), grid.get(2 + plus.getOffsetX(block), 2 + plus.getOffsetY(block)));
+        }
+        assertFalse(grid.canPlayPiece(plus, 2, 2));
+    }
+
+    @Test
+    void findsAndClearsFullRowsAndColumns() {
+        var grid = new Grid(5, 5);
+        for (var x = 0; x < 5; x++) {
+            if (x != 2) grid.set(x, 2, 1);
+        }
+        for (var y = 0; y < 5; y++) {
+            if (y != 2) grid.set(2, y, 1);
+        }
+        grid.set(0, 0, 1);
+
+        var dot = GamePiece.createPiece(3);
+        grid.playPiece(dot, 2, 2);
+        var lines = new LineClear();
+        grid.findLines(dot, 2, 2, lines);
+        assertEquals(1L << 2, lines.getRows());
+        assertEquals(1L << 2, lines.getCols());
+        assertEquals(2, lines.getLineCount());
+        assertEquals(9, lines.getBlockCount(5, 5));
+
+        grid.clearLines(lines);
+        for (var i = 0; i < 5; i++) {
+            assertEquals(0, grid.get(i, 2));
+            assertEquals(0, grid.get(2, i));
+        }
+        assertEquals(1, grid.get(0, 0));
+    }
+
+    @Test
+    void noLinesWhenNothingIsFull() {
+        var grid = new Grid(5, 5);
+        var line = GamePiece.createPiece(0);
+        grid.playPiece(line, 2, 2);
+        var lines = new LineClear();
+        grid.findLines(line, 2, 2, lines);
+        assertTrue(lines.isEmpty());
+    }
+
+    @Test
+    void clearEmptiesEverything() {
+        var grid = new Grid(6, 6);
+        grid.set(0, 0, 1);
+        grid.set(5, 5, 2);
+        grid.clear();
+        for (var y = 0; y < 6; y++) {
+            assertEquals(0, grid.getRowMask(y));
+        }
+        assertEquals(0, grid.get(5, 5));
+    }
+
+    /**
+     * Whether a piece fits, checked one block at a time
+     */
+    private static boolean fits(Grid grid, GamePiece piece, int x, int y) {
+        for (var block = 0; block < piece.getBlockCount(); block++) {
+            var value = grid.get(x + piece.getOffsetX(block), y + piece.getOffsetY(block));
+            if (value != 0) return false;
+        }
+        return true;
+    }
+}
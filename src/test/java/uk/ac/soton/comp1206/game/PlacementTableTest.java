@@ -0,0 +1,62 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks every precomputed footprint against the blocks of the piece
+ */
+class PlacementTableTest {
+
+    @Test
+    void onlySmallGridsFit() {
+        assertTrue(PlacementTable.fits(5, 5));
+        assertTrue(PlacementTable.fits(8, 8));
+        assertFalse(PlacementTable.fits(9, 8));
+        assertThrows(IllegalArgumentException.class, () -> PlacementTable.forSize(9, 9));
+    }
+
+    @Test
+    void tablesAreShared() {
+        assertSame(PlacementTable.forSize(5, 5), PlacementTable.forSize(5, 5));
+    }
+
+    @Test
+    void masksMatchThePieceBlocks() {
+        for (var size : new int[][] {{5, 5}, {8, 8}, {4, 6}}) {
+            var cols = size[0];
+            var rows = size[1];
+            var table = PlacementTable.forSize(cols, rows);
+            for (var piece = 0; piece < GamePiece.PIECES; piece++) {
+                for (var rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+                    var orientation = GamePiece.createPiece(piece, rotation);
+                    for (var y = -1; y <= rows; y++) {
+                        for (var x = -1; x <= cols; x++) {
+                            assertEquals(footprint(orientation, x, y, cols, rows), table.getMask(orientation, x, y),
+                                orientation + " rotation " + rotation + " at " + x + "," + y);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The footprint of a piece worked out block by block, or 0 if any block is off the grid
+     */
+    private static long footprint(GamePiece piece, int x, int y, int cols, int rows) {
+        var mask = 0L;
+        for (var block = 0; block < piece.getBlockCount(); block++) {
+            var blockX = x + piece.getOffsetX(block);
+            var blockY = y + piece.getOffsetY(block);
+            if (blockX < 0 || blockY < 0 || blockX >= cols || blockY >= rows) return 0;
+            mask |= 1L << (blockY * cols + blockX);
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,50 @@
+package uk.ac.soton.comp1206.replay;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.PieceGenerator;
+
+/**
+ * Checks what can be recorded and that a recording stays closed once it has ended
+ */
+class ReplayRecorderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fixedSequencesCannotBeRecorded() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new ReplayRecorder(directory.resolve("game.replay"), PieceGenerator.sequence((byte) 3), 5, 5));
+    }
+
+    @Test
+    void eventsAfterTheEndAreIgnored() throws InterruptedException {
+        var engine = new GameEngine(5, 5, PieceGenerator.bag(13));
+        var recorder = new ReplayRecorder(directory.resolve("game.replay"), engine.getGenerator(), 5, 5);
+        engine.setListener(recorder);
+        engine.start();
+        recorder.end(0, 0, GameEngine.STARTING_LIVES);
+
+        //Moves still queued when the game ends reach the recorder afterwards
+        engine.rotateCurrentPiece(1);
+        engine.swapCurrentPiece();
+        assertTrue(engine.playPiece(2, 2));
+        engine.timerExpired();
+        recorder.flush();
+
+        //Let the writer finish with the file before the directory is removed
+        var written = new CountDownLatch(1);
+        ReplayRecorder.execute(written::countDown);
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+        assertFalse(recorder.hasFailed());
+    }
+}
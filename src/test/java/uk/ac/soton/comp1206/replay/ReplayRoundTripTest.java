@@ -0,0 +1,104 @@
+package uk.ac.soton.comp1206.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.soton.comp1206.ai.Heuristic;
+import uk.ac.soton.comp1206.ai.MoveSearch;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.PieceGenerator;
+
+/**
+ * Records games and checks that playing them back reaches the same result, and that altered replays are caught
+ */
+class ReplayRoundTripTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordedGamesVerify() throws Exception {
+        for (var seed = 1L; seed <= 3; seed++) {
+            var file = directory.resolve("game-" + seed + ReplayPlayer.EXTENSION);
+            var engine = record(file, PieceGenerator.bag(seed), 0);
+
+            var result = ReplayPlayer.verify(file);
+            assertTrue(result.isVerified(), String.valueOf(result.getProblem()));
+            assertEquals(engine.getScore(), result.getRecordedScore());
+            assertEquals(engine.getScore(), result.getReplayedScore());
+        }
+        assertEquals(3, ReplayPlayer.verifyAll(directory).size());
+    }
+
+    @Test
+    void wrongScoresAreCaught() throws Exception {
+        var file = directory.resolve("game" + ReplayPlayer.EXTENSION);
+        var engine = record(file, PieceGenerator.random(7), 10);
+
+        var result = ReplayPlayer.verify(file);
+        assertFalse(result.isVerified());
+        assertEquals(engine.getScore() + 10, result.getRecordedScore());
+        assertEquals(engine.getScore(), result.getReplayedScore());
+    }
+
+    @Test
+    void truncatedAndForeignFilesAreCaught() throws Exception {
+        var file = directory.resolve("game" + ReplayPlayer.EXTENSION);
+        record(file, PieceGenerator.bag(11), 0);
+        var data = Files.readAllBytes(file);
+
+        var truncated = ReplayPlayer.verify(file, ByteBuffer.wrap(Arrays.copyOf(data, data.length - 2)));
+        assertFalse(truncated.isVerified());
+
+        var header = ReplayPlayer.verify(file, ByteBuffer.wrap(Arrays.copyOf(data, ReplayFormat.HEADER_SIZE)));
+        assertEquals("Replay has no end", header.getProblem());
+
+        var foreign = ReplayPlayer.verify(file, ByteBuffer.wrap("not a replay at all, honestly".getBytes()));
+        assertEquals("Not a replay", foreign.getProblem());
+    }
+
+    /**
+     * Play a game with moves found by a search, along with rotations, swaps, timeouts and power ups, recording it and
+     * waiting until the replay has been written
+     * @param claimed points added to the score recorded at the end
+     */
+    private static GameEngine record(Path file, PieceGenerator generator, int claimed) throws InterruptedException {
+        var engine = new GameEngine(5, 5, generator);
+        var recorder = new ReplayRecorder(file, generator, 5, 5);
+        engine.setListener(recorder);
+        engine.start();
+
+        var search = new MoveSearch(Heuristic.standard());
+        var turn = 0;
+        while (!engine.isOver() && turn < 200) {
+            turn++;
+            if (turn % 7 == 0) engine.rotateCurrentPiece(turn % 4);
+            if (turn % 11 == 0) engine.swapCurrentPiece();
+            if (turn % 50 == 0) engine.clearAll();
+            if (turn % 60 == 0) engine.addLife();
+            var move = search.search(engine, true);
+            if (move == null || turn % 23 == 0) {
+                engine.timerExpired();
+            } else {
+                assertTrue(engine.playMove(move));
+            }
+            if (turn % 10 == 0) recorder.flush();
+        }
+        recorder.end(engine.getScore() + claimed, engine.getLevel(), engine.getLives());
+
+        var written = new CountDownLatch(1);
+        ReplayRecorder.execute(written::countDown);
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+        assertFalse(recorder.hasFailed());
+        return engine;
+    }
+}
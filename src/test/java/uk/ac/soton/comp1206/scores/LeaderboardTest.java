@@ -0,0 +1,132 @@
+package uk.ac.soton.comp1206.scores;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks ranks, ranges and the scores around a player against a sorted list of every score
+ */
+class LeaderboardTest {
+
+    private static final String[] NAMES = {"Ann", "Bob", "Cat", "Dan", "Eve", "Fay", "Gus"};
+
+    @Test
+    void ranksMatchASortedList() {
+        var random = new Random(3);
+        var leaderboard = new Leaderboard(4);
+        var reference = new ArrayList<Leaderboard.Entry>();
+        for (var i = 0; i < 2000; i++) {
+            var name = NAMES[random.nextInt(NAMES.length)];
+            //Few distinct scores, so there are plenty of ties
+            var score = random.nextInt(300) * 10;
+            var rank = leaderboard.add(name, score);
+            reference.add(new Leaderboard.Entry(0, name, score));
+            var sorted = sort(reference);
+            assertEquals(expectedRank(sorted, reference.get(reference.size() - 1)), rank);
+        }
+
+        var sorted = sort(reference);
+        assertEquals(sorted.size(), leaderboard.size());
+        assertEquals(sorted, leaderboard.range(1, sorted.size()));
+        assertEquals(sorted.subList(0, 10), leaderboard.top(10));
+        assertEquals(sorted.subList(500, 550), leaderboard.range(501, 50));
+        assertEquals(sorted.subList(1990, 2000), leaderboard.range(1991, 50));
+        assertTrue(leaderboard.range(2001, 5).isEmpty());
+        assertTrue(leaderboard.range(0, 5).isEmpty());
+    }
+
+    @Test
+    void rankOfAScoreCountsEqualScoresFirst() {
+        var leaderboard = new Leaderboard();
+        leaderboard.add("Ann", 100);
+        leaderboard.add("Bob", 50);
+        leaderboard.add("Cat", 50);
+        leaderboard.add("Dan", 10);
+        assertEquals(1, leaderboard.rankOf(200));
+        assertEquals(2, leaderboard.rankOf(100));
+        assertEquals(4, leaderboard.rankOf(50));
+        assertEquals(5, leaderboard.rankOf(0));
+        assertEquals(5, leaderboard.rankOf(Integer.MIN_VALUE));
+        assertEquals(1, leaderboard.rankOf(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void playersAreRankedByTheirBestScore() {
+        var leaderboard = new Leaderboard();
+        for (var i = 0; i < 20; i++) {
+            leaderboard.add("Ann", i * 10);
+        }
+        leaderboard.add("Bob", 95);
+        assertEquals(11, leaderboard.rankOf("Bob"));
+        assertEquals(1, leaderboard.rankOf("Ann"));
+        assertEquals(-1, leaderboard.rankOf("Cat"));
+
+        var around = leaderboard.around("Bob", 2);
+        assertEquals(List.of(
+            new Leaderboard.Entry(9, "Ann", 110),
+            new Leaderboard.Entry(10, "Ann", 100),
+            new Leaderboard.Entry(11, "Bob", 95),
+            new Leaderboard.Entry(12, "Ann", 90),
+            new Leaderboard.Entry(13, "Ann", 80)), around);
+        assertEquals(3, leaderboard.around("Ann", 2).size());
+        assertTrue(leaderboard.around("Cat", 2).isEmpty());
+    }
+
+    @Test
+    void rankedEntriesBuildTheSameLeaderboard() {
+        var random = new Random(4);
+        var added = new Leaderboard();
+        for (var i = 0; i < 1000; i++) {
+            added.add(NAMES[random.nextInt(NAMES.length)], random.nextInt(100));
+        }
+        var entries = added.top(added.size());
+        var names = List.of(NAMES);
+        var built = Leaderboard.ranked(names, entries.size(), i -> entries.get(i).score(),
+            i -> names.indexOf(entries.get(i).name()));
+
+        assertEquals(entries, built.top(built.size()));
+        for (var name : NAMES) {
+            assertEquals(added.rankOf(name), built.rankOf(name));
+        }
+        //Adding after building carries on from the ranked entries
+        assertEquals(added.add("Hal", 50), built.add("Hal", 50));
+        assertEquals(added.top(added.size()), built.top(built.size()));
+    }
+
+    @Test
+    void rankedRejectsUnknownNames() {
+        assertThrows(IllegalArgumentException.class,
+            () -> Leaderboard.ranked(List.of("Ann"), 1, i -> 10, i -> 1));
+    }
+
+    /**
+     * Sort entries highest first, keeping the order they were added in for equal scores, and number them
+     */
+    private static List<Leaderboard.Entry> sort(List<Leaderboard.Entry> entries) {
+        var sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingInt(Leaderboard.Entry::score).reversed());
+        var ranked = new ArrayList<Leaderboard.Entry>();
+        for (var i = 0; i < sorted.size(); i++) {
+            ranked.add(new Leaderboard.Entry(i + 1, sorted.get(i).name(), sorted.get(i).score()));
+        }
+        return ranked;
+    }
+
+    /**
+     * The rank of the last entry added, which comes after every equal score
+     */
+    private static int expectedRank(List<Leaderboard.Entry> sorted, Leaderboard.Entry last) {
+        var rank = 0;
+        for (var entry : sorted) {
+            if (entry.score() >= last.score()) rank++;
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,180 @@
+package uk.ac.soton.comp1206.scores;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks appending, reopening, compacting and recovering score logs
+ */
+class ScoreLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedScoresAreKeptAfterReopening() throws IOException {
+        var file = directory.resolve("scores.log");
+        try (var log = new ScoreLog(file)) {
+            assertEquals(0, log.size());
+            log.append("Ann", 100, 1, 11, "replays/ann.replay");
+            log.append("Bob", 200, 2, 22, null);
+            log.append("Ann", 300, 3, 33, null);
+        }
+        try (var log = new ScoreLog(file)) {
+            assertEquals(3, log.size());
+            assertEquals(0, log.ranked());
+            assertEquals(List.of("Ann", "Bob"), log.getNames());
+            assertEquals(new ScoreLog.Score("Ann", 100, 1, 11, "replays/ann.replay"), log.get(0));
+            assertEquals(new ScoreLog.Score("Bob", 200, 2, 22, null), log.get(1));
+            assertEquals(300, log.score(2));
+            assertEquals(0, log.nameId(2));
+        }
+    }
+
+    @Test
+    void compactingRanksEveryScore() throws IOException {
+        var file = directory.resolve("scores.log");
+        var random = new Random(5);
+        var added = new ArrayList<ScoreLog.Score>();
+        try (var log = new ScoreLog(file)) {
+            //Compact part way through, so ranked and newer scores are merged
+            for (var round = 0; round < 3; round++) {
+                for (var i = 0; i < ScoreLog.COMPACT_THRESHOLD + 100; i++) {
+                    var score = new ScoreLog.Score("P" + random.nextInt(20), random.nextInt(50), added.size(), i,
+                        i % 100 == 0 ? "r" + added.size() : null);
+                    log.append(score.name(), score.score(), score.timestamp(), score.seed(), score.replay());
+                    added.add(score);
+                }
+                assertTrue(log.needsCompaction());
+                log.compact();
+                assertEquals(added.size(), log.ranked());
+                assertFalse(log.needsCompaction());
+            }
+        }
+
+        //Highest first, and equal scores in the order they were added
+        var expected = new ArrayList<>(added);
+        expected.sort((a, b) -> Integer.compare(b.score(), a.score()));
+        try (var log = new ScoreLog(file)) {
+            assertEquals(expected.size(), log.size());
+            for (var i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), log.get(i));
+            }
+        }
+    }
+
+    @Test
+    void createdLogsAreRanked() throws IOException {
+        var file = directory.resolve("scores.log");
+        var scores = List.of(new ScoreLog.Score("Ann", 30, 0, 0, "a"), new ScoreLog.Score("Bob\nby", 20, 0, 0, null));
+        try (var log = ScoreLog.create(file, scores)) {
+            assertEquals(2, log.ranked());
+            assertEquals("a", log.get(0).replay());
+            //Line breaks cannot be kept in the names file
+            assertEquals("Bob by", log.get(1).name());
+            log.append("Cat", 40, 0, 0, "c");
+            assertEquals("c", log.get(2).replay());
+        }
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        var file = directory.resolve("scores.log");
+        Files.writeString(file, "Ann:100\nBob:200\nCat:300\nDan:400\n");
+        var e = assertThrows(IOException.class, () -> new ScoreLog(file));
+        assertTrue(e.getMessage().startsWith("Not a score log"));
+
+        Files.writeString(file, "short");
+        assertThrows(IOException.class, () -> new ScoreLog(file));
+    }
+
+    @Test
+    void unknownVersionsAreRejected() throws IOException {
+        var file = directory.resolve("scores.log");
+        new ScoreLog(file).close();
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 99), 4);
+        }
+        var e = assertThrows(IOException.class, () -> new ScoreLog(file));
+        assertTrue(e.getMessage().startsWith("Unknown score log version"));
+    }
+
+    @Test
+    void partlyWrittenNamesAreDropped() throws IOException {
+        var file = directory.resolve("scores.log");
+        try (var log = new ScoreLog(file)) {
+            log.append("Ann", 10, 0, 0, null);
+        }
+        var names = directory.resolve("scores.log.names");
+        Files.write(names, "Bo".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (var log = new ScoreLog(file)) {
+            assertEquals(List.of("Ann"), log.getNames());
+            log.append("Bob", 20, 0, 0, null);
+            assertEquals("Bob", log.get(1).name());
+        }
+        assertEquals("Ann\nBob\n", Files.readString(names));
+    }
+
+    @Test
+    void namesAreKeptWhenTheLogIsMissing() throws IOException {
+        var file = directory.resolve("scores.log");
+        Files.writeString(directory.resolve("scores.log.names"), "Ann\nBob\n");
+        try (var log = new ScoreLog(file)) {
+            assertEquals(0, log.size());
+            assertEquals(List.of("Ann", "Bob"), log.getNames());
+            log.append("Bob", 10, 0, 0, null);
+            assertEquals(1, log.nameId(0));
+        }
+    }
+
+    @Test
+    void appendsCarryOnAfterCompacting() throws IOException {
+        var file = directory.resolve("scores.log");
+        try (var log = new ScoreLog(file)) {
+            for (var i = 0; i < 3000; i++) {
+                log.append("Ann", i, i, 0, null);
+                if (log.needsCompaction()) log.compact();
+            }
+            assertEquals(3000, log.size());
+            log.compact();
+            assertEquals(2999, log.score(0));
+        }
+        assertFalse(Files.exists(directory.resolve("scores.log.tmp")));
+    }
+
+    @Test
+    void countsBeyondTheFileAreCut() throws IOException {
+        var file = directory.resolve("scores.log");
+        try (var log = new ScoreLog(file)) {
+            log.append("Ann", 10, 0, 0, null);
+            log.append("Bob", 20, 0, 0, null);
+            log.compact();
+        }
+        //Claim far more records than the compacted file holds
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putLong(0, 1000), 24);
+        }
+        try (var log = new ScoreLog(file)) {
+            assertEquals(2, log.size());
+            assertEquals(2, log.ranked());
+            assertNull(log.get(1).replay());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package uk.ac.soton.comp1206.scores;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javafx.util.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks reading name:score lines, importing scores.txt and starting again from a log which cannot be read
+ */
+class ScoreRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parsesNameAndScore() {
+        assertEquals(new Pair<>("Ann", 100), ScoreRepository.parse("Ann:100"));
+        assertEquals(new Pair<>("Ann", 100), ScoreRepository.parse(" Ann : 100 "));
+        //The score follows the last colon, so names may have colons in
+        assertEquals(new Pair<>("Dr: Who", 5), ScoreRepository.parse("Dr: Who:5"));
+        assertEquals(new Pair<>("Neg", -5), ScoreRepository.parse("Neg:-5"));
+    }
+
+    @Test
+    void rejectsBadLines() {
+        assertNull(ScoreRepository.parse("Ann"));
+        assertNull(ScoreRepository.parse(":100"));
+        assertNull(ScoreRepository.parse("Ann:"));
+        assertNull(ScoreRepository.parse("Ann:lots"));
+        assertNull(ScoreRepository.parse("Ann:99999999999"));
+    }
+
+    @Test
+    void importsScoresText() throws Exception {
+        Files.writeString(directory.resolve(ScoreRepository.TEXT_FILE), "Ann:100\nnonsense\n\nBob:300\nCat:200\n");
+        var repository = new ScoreRepository(directory.resolve("scores.log"));
+        assertEquals(List.of(new Pair<>("Bob", 300), new Pair<>("Cat", 200), new Pair<>("Ann", 100)),
+            repository.getScores());
+        assertEquals(100, repository.getLowestScore());
+        assertTrue(repository.isHighScore(1));
+        assertEquals(2, repository.getRank(250).get());
+
+        repository.addScore("Dan", 250, 7, null);
+        assertTrue(repository.flush(5000));
+        assertEquals(new Pair<>("Dan", 250), repository.getScores().get(1));
+        assertEquals(2, repository.getAround("Dan", 0).get().get(0).rank());
+
+        //Reopened from the log rather than imported again
+        Files.delete(directory.resolve(ScoreRepository.TEXT_FILE));
+        var reopened = new ScoreRepository(directory.resolve("scores.log"));
+        assertEquals(4, reopened.getScores().size());
+        assertEquals(4, reopened.getTop(10).get().size());
+    }
+
+    @Test
+    void usesTheDefaultsWithNothingToImport() {
+        var repository = new ScoreRepository(directory.resolve("scores.log"));
+        assertEquals(ScoreRepository.MAX_SCORES, repository.getScores().size());
+        assertEquals(new Pair<>("Rohit", 400), repository.getScores().get(0));
+        assertFalse(repository.isHighScore(10));
+        assertTrue(repository.isHighScore(11));
+    }
+
+    @Test
+    void movesAsideALogWhichCannotBeRead() throws Exception {
+        var file = directory.resolve("scores.log");
+        Files.writeString(file, "this is not a score log, but it is long enough to look like one");
+        Files.writeString(directory.resolve(ScoreRepository.TEXT_FILE), "Ann:100\n");
+
+        var repository = new ScoreRepository(file);
+        assertEquals(List.of(new Pair<>("Ann", 100)), repository.getScores());
+        repository.addScore("Bob", 50, 0, null);
+        assertTrue(repository.flush(5000));
+
+        try (var listing = Files.list(directory)) {
+            assertEquals(1, listing.filter(f -> f.getFileName().toString().startsWith("scores.log.corrupt-")).count());
+        }
+        assertEquals(2, new ScoreRepository(file).getScores().size());
+    }
+
+    @Test
+    void keepsScoresInMemoryWhenTheLogCannotBeCreated() throws IOException {
+        var blocked = directory.resolve("blocked");
+        Files.writeString(blocked, "a file, not a directory");
+        var repository = new ScoreRepository(blocked.resolve("scores.log"));
+        assertEquals(ScoreRepository.MAX_SCORES, repository.getScores().size());
+        repository.addScore("Ann", 1000, 0, null);
+        assertEquals(new Pair<>("Ann", 1000), repository.getScores().get(0));
+    }
+}